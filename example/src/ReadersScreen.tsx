@@ -1,11 +1,10 @@
 
 import React, { useState, useEffect } from 'react';
-import { Button, View, Text, FlatList, StyleSheet, TouchableOpacity, NativeEventEmitter } from 'react-native';
+import { Button, View, Text, FlatList, StyleSheet, TouchableOpacity, Platform } from 'react-native';
 import { NavigationContainer } from '@react-navigation/native';
 import { createStackNavigator } from '@react-navigation/stack';
 
-import GallagherMobileAccess, { SdkStateChanged, ReaderUpdated, AccessEvent } from 'react-native-gallagher-mobile-access';
-const GallagherMobileAccessEvents = new NativeEventEmitter(GallagherMobileAccess);
+import GallagherMobileAccess, { GallagherMobileAccessEvents, SdkStateChanged, ReaderUpdated, ReadersUpdated, AccessEvent } from 'react-native-gallagher-mobile-access';
 
 const Stack = createStackNavigator();
 
@@ -23,7 +22,7 @@ function ReadersScreen() {
             console.log('isScanning: ' + data.isScanning + ' sdkStates: '+JSON.stringify(data.states));
         });
 
-        const subscription = GallagherMobileAccessEvents.addListener('readerUpdated', (data: ReaderUpdated) => {
+        const applyReaderUpdate = (data: ReaderUpdated) => {
             const { updateType, reader } = data;
 
             let existingReader = null;
@@ -50,7 +49,8 @@ function ReadersScreen() {
                     {
                         const localReaders = readers.slice();
                         if (existingIdx != -1) {
-                            Object.assign(localReaders[existingIdx], reader); // overwrite properties but leave status alone
+                            // overwrite properties but leave status alone. Any live update means it's no longer stale
+                            Object.assign(localReaders[existingIdx], reader, { stale: false });
                         } else {
                             localReaders.push(reader);
                         }
@@ -58,12 +58,26 @@ function ReadersScreen() {
                         break;
                     }
             }
+        };
 
+        const subscription = GallagherMobileAccessEvents.addListener('readerUpdated', applyReaderUpdate);
+
+        // android batches reader updates by default; see setReaderUpdateMode
+        const batchSubscription = GallagherMobileAccessEvents.addListener('readersUpdated', (data: ReadersUpdated) => {
+            data.updates.forEach(applyReaderUpdate);
         });
 
+        // android keeps a native table of readers in range, so we can start from that rather than an empty list
+        if (Platform.OS === 'android') {
+            GallagherMobileAccess.getReaders().then(setReaders);
+        }
+
         const accessSubscription = GallagherMobileAccessEvents.addListener('access', (data: AccessEvent) => {
             const { event, message, reader } = data;
             console.log(`access event=${event} message=${message}`);
+            if (data.timestamp) {
+                console.log(`access event latency: ${Date.now() - data.timestamp}ms (native ${data.dispatchLatencyMs}ms)`);
+            }
 
             let existingReader = null;
             let existingIdx = -1;
@@ -89,6 +103,7 @@ function ReadersScreen() {
         return () => {
             sdkSub.remove();
             subscription.remove();
+            batchSubscription.remove();
             accessSubscription.remove();
         }
     }, []);
@@ -102,7 +117,7 @@ function ReadersScreen() {
                 }
                 { !reader.status &&
                 <>
-                    <Text style={styles.titleText}>{reader.distance}</Text>
+                    <Text style={styles.titleText}>{reader.stale ? 'not seen yet' : reader.distance}</Text>
                     <Button title="Actions" onPress={() => { /*todo requestReaderActions*/ }} />
                 </>
                 }
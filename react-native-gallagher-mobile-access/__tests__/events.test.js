@@ -0,0 +1,40 @@
+import { NativeModules } from 'react-native';
+import { GallagherMobileAccessEvents } from '../index';
+
+jest.mock('react-native', () => ({
+  NativeModules: {
+    GallagherMobileAccess: {
+      subscribeEvent: jest.fn(),
+      unsubscribeEvent: jest.fn(),
+    },
+  },
+  Platform: { OS: 'android' },
+  NativeEventEmitter: jest.fn().mockImplementation(() => ({
+    addListener: jest.fn(() => ({ remove: jest.fn() })),
+  })),
+}));
+
+const { GallagherMobileAccess } = NativeModules;
+
+beforeEach(() => {
+  GallagherMobileAccess.subscribeEvent.mockClear();
+  GallagherMobileAccess.unsubscribeEvent.mockClear();
+});
+
+test('names the event on subscribe and unsubscribe', () => {
+  const access = GallagherMobileAccessEvents.addListener('access', () => {});
+  const readers = GallagherMobileAccessEvents.addListener('readerUpdated', () => {});
+  expect(GallagherMobileAccess.subscribeEvent.mock.calls).toEqual([['access'], ['readerUpdated']]);
+
+  readers.remove();
+  expect(GallagherMobileAccess.unsubscribeEvent.mock.calls).toEqual([['readerUpdated']]);
+  access.remove();
+  expect(GallagherMobileAccess.unsubscribeEvent.mock.calls).toEqual([['readerUpdated'], ['access']]);
+});
+
+test('removing twice only unsubscribes once', () => {
+  const subscription = GallagherMobileAccessEvents.addListener('access', () => {});
+  subscription.remove();
+  subscription.remove();
+  expect(GallagherMobileAccess.unsubscribeEvent).toHaveBeenCalledTimes(1);
+});
@@ -0,0 +1,120 @@
+import { decodePackedReaders } from '../index';
+
+jest.mock('react-native', () => ({
+  NativeModules: { GallagherMobileAccess: {} },
+  Platform: { OS: 'android' },
+  NativeEventEmitter: jest.fn(),
+}));
+
+// Timings of decodePackedReaders for sites of 50 to 200 readers, next to JSON.parse of the same readers as
+// plain maps. Run with BENCHMARK=1 to print them; the assertions only check the decoding and a bound
+// generous enough not to flake. PackedReaderPayloadTest compares the payload sizes.
+
+const SITE_SIZES = [50, 100, 200];
+const WARMUP_RUNS = 50;
+const RUNS = 200;
+
+// the readers FakeReader.many makes on the Java side
+function makeReaders(count) {
+  const readers = [];
+  for (let i = 0; i < count; i++) {
+    readers.push({
+      id: `reader-${i}`,
+      name: `Reader reader-${i}`,
+      measuredPathLoss: 50 + ((i * 7) % 50),
+      autoConnectPathLoss: 55,
+      manualConnectPathLoss: 70,
+      distance: 'far',
+      isBleManualConnectEnabled: true,
+      isBleAutoConnectEnabled: true,
+      isSecondFactorRequired: false,
+      isBleActionsEnabled: false,
+      stale: false,
+      updateType: 'attributesChanged',
+    });
+  }
+  return readers;
+}
+
+// what PackedReaderEncoder.encodeToBase64 produces for these readers
+function encodePackedReaders(readers) {
+  const strings = [];
+  const indexes = new Map();
+  const intern = (value) => {
+    if (!indexes.has(value)) {
+      indexes.set(value, strings.length);
+      strings.push(Buffer.from(value, 'utf8'));
+    }
+    return indexes.get(value);
+  };
+  const records = readers.map((reader) => [intern(reader.id), intern(reader.name), reader]);
+  const stringBytes = strings.reduce((total, string) => total + 2 + string.length, 0);
+  const buffer = Buffer.alloc(8 + records.length * 20 + stringBytes);
+  buffer.write('GR', 0, 'latin1');
+  buffer.writeUInt8(1, 2);
+  buffer.writeUInt16LE(records.length, 4);
+  buffer.writeUInt16LE(strings.length, 6);
+  let offset = 8;
+  for (const [id, name, reader] of records) {
+    buffer.writeUInt16LE(id, offset);
+    buffer.writeUInt16LE(name, offset + 2);
+    buffer.writeFloatLE(reader.measuredPathLoss, offset + 4);
+    buffer.writeFloatLE(reader.autoConnectPathLoss, offset + 8);
+    buffer.writeFloatLE(reader.manualConnectPathLoss, offset + 12);
+    buffer.writeUInt8(0, offset + 16); // far
+    buffer.writeUInt8(
+      (reader.isBleManualConnectEnabled ? 1 : 0) | (reader.isBleAutoConnectEnabled ? 2 : 0),
+      offset + 17
+    );
+    offset += 20;
+  }
+  for (const string of strings) {
+    buffer.writeUInt16LE(string.length, offset);
+    string.copy(buffer, offset + 2);
+    offset += 2 + string.length;
+  }
+  return buffer.toString('base64');
+}
+
+// median and 95th percentile of RUNS timed calls, in microseconds
+function time(body) {
+  for (let i = 0; i < WARMUP_RUNS; i++) {
+    body();
+  }
+  const samples = [];
+  for (let i = 0; i < RUNS; i++) {
+    const start = process.hrtime.bigint();
+    body();
+    samples.push(Number(process.hrtime.bigint() - start) / 1000);
+  }
+  samples.sort((a, b) => a - b);
+  return {
+    median: samples[Math.floor(RUNS / 2)],
+    p95: samples[Math.floor(RUNS * 0.95)],
+  };
+}
+
+describe.each(SITE_SIZES)('%i readers', (count) => {
+  const readers = makeReaders(count);
+  const packed = encodePackedReaders(readers);
+  const maps = JSON.stringify({
+    updates: readers.map(({ updateType, stale, ...reader }) => ({ updateType, reader })),
+  });
+
+  test('decodes every reader', () => {
+    expect(decodePackedReaders(packed)).toEqual(readers);
+  });
+
+  test('decodes within a frame', () => {
+    const decode = time(() => decodePackedReaders(packed));
+    const parse = time(() => JSON.parse(maps));
+    if (process.env.BENCHMARK) {
+      console.log(
+        `${count} readers: packed ${packed.length} chars, decode median ${decode.median.toFixed(1)}µs ` +
+          `p95 ${decode.p95.toFixed(1)}µs; maps ${maps.length} chars, JSON.parse median ` +
+          `${parse.median.toFixed(1)}µs p95 ${parse.p95.toFixed(1)}µs`
+      );
+    }
+    expect(decode.median).toBeLessThan(16000);
+  });
+});
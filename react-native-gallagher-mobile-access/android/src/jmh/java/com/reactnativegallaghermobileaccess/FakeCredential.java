@@ -0,0 +1,52 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+
+import com.gallagher.security.mobileaccess.MobileCredential;
+
+import java.util.Date;
+
+// A MobileCredential with fixed fields, standing in for the SDK's credentials
+class FakeCredential implements MobileCredential {
+  @NonNull
+  private final String mId;
+  private final int mFacilityId;
+  @NonNull
+  private final String mFacilityName;
+  @NonNull
+  private final Date mRegisteredDate = new Date(1600000000000L);
+
+  FakeCredential(@NonNull String id, int facilityId) {
+    mId = id;
+    mFacilityId = facilityId;
+    mFacilityName = "Facility " + facilityId;
+  }
+
+  @NonNull
+  @Override
+  public String getId() {
+    return mId;
+  }
+
+  @Override
+  public int getFacilityId() {
+    return mFacilityId;
+  }
+
+  @NonNull
+  @Override
+  public String getFacilityName() {
+    return mFacilityName;
+  }
+
+  @Override
+  public boolean isRevoked() {
+    return false;
+  }
+
+  @NonNull
+  @Override
+  public Date getRegisteredDate() {
+    return mRegisteredDate;
+  }
+}
@@ -0,0 +1,147 @@
+package com.reactnativegallaghermobileaccess;
+
+import com.gallagher.security.mobileaccess.MobileAccessState;
+import com.gallagher.security.mobileaccess.ReaderUpdateType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// What the module does on the SDK's callback thread for every reader update and state change, with fake
+// readers standing in for a busy site. Sample time, so JMH reports percentiles rather than just a mean;
+// run with the gc profiler (as ./gradlew jmh does) for bytes allocated per op.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HotPathBenchmark {
+  private static final int READERS = 50;
+
+  private ReaderStateTable mTable;
+  private ReaderUpdateFilter mFilter;
+  private ReaderUpdateCoalescer mCoalescer;
+  private SdkStateMemo mMemo;
+  private EventJournal mJournal;
+  private ProximityTracker mTracker;
+
+  private FakeReader[] mReaders;
+  private FakeReader[] mSamples;
+  private List<MobileAccessState> mSomeStates;
+  private List<MobileAccessState> mOtherStates;
+
+  private long mIteration; // never reset, as the proximity tracker's time mustn't go backwards
+  private double mSmoothed;
+  private double mReported;
+
+  @Setup
+  public void setUp() {
+    mFilter = new ReaderUpdateFilter();
+    mFilter.setPathLossSmoothing(0.3);
+    mFilter.setMinPathLossDelta(2);
+    mTable = new ReaderStateTable(mFilter);
+    mCoalescer = new ReaderUpdateCoalescer();
+    mMemo = new SdkStateMemo();
+    mJournal = new EventJournal();
+    mTracker = new ProximityTracker();
+
+    mReaders = FakeReader.many(READERS);
+    mSamples = FakeReader.many(READERS);
+    MobileAccessState[] all = MobileAccessState.values();
+    mSomeStates = Collections.singletonList(all[0]);
+    mOtherStates = new ArrayList<>();
+    for (int i = 0; i < Math.min(3, all.length); i++) {
+      mOtherStates.add(all[i]);
+    }
+
+    mIteration = 0;
+    mSmoothed = 70;
+    mReported = 70;
+  }
+
+  // path loss readings jitter by a couple of dB around each reader's own level
+  private FakeReader nextSample() {
+    long iteration = mIteration++;
+    int reader = (int) (iteration % READERS);
+    FakeReader sample = mSamples[reader];
+    sample.measuredPathLoss = mReaders[reader].measuredPathLoss + ((iteration * 31) % 5 - 2) * 0.7;
+    return sample;
+  }
+
+  @Benchmark
+  public boolean readerStateTableUpdate() {
+    return mTable.update(nextSample());
+  }
+
+  @Benchmark
+  public int readerStateTableUpdateAndTakeChanges() {
+    FakeReader sample = nextSample();
+    if (!mTable.update(sample)) {
+      return 0;
+    }
+    return mTable.takeChanges(sample.id).changedFields;
+  }
+
+  @Benchmark
+  public boolean readerUpdateFilter() {
+    long iteration = mIteration++;
+    mSmoothed = mFilter.smooth(mSmoothed, 70 + ((iteration * 31) % 9 - 4));
+    if (mFilter.isPathLossSignificant(mReported, mSmoothed, false)) {
+      mReported = mSmoothed;
+      return true;
+    }
+    return false;
+  }
+
+  // a flush for every few rounds of readers, as at a 100ms flush interval on a busy site
+  @Benchmark
+  public int readerUpdateCoalescer() {
+    long iteration = mIteration++;
+    int result = mCoalescer.offer(mReaders[(int) (iteration % READERS)], ReaderUpdateType.ATTRIBUTES_CHANGED) ? 1 : 0;
+    if (iteration % (READERS * 4) == READERS * 4 - 1) {
+      result += mCoalescer.drain().size();
+    }
+    return result;
+  }
+
+  @Benchmark
+  public String[] sdkStateMemoRepeat() {
+    return mMemo.update(true, mSomeStates);
+  }
+
+  @Benchmark
+  public String[] sdkStateMemoAlternating() {
+    return mMemo.update(true, mIteration++ % 2 == 0 ? mOtherStates : mSomeStates);
+  }
+
+  @Benchmark
+  public void eventJournalRecord() {
+    FakeReader reader = mReaders[(int) (mIteration++ % READERS)];
+    mJournal.record(EventJournal.READER_UPDATED, reader.id, reader.measuredPathLoss,
+      ReaderUpdateType.ATTRIBUTES_CHANGED.ordinal());
+  }
+
+  // every reader walked towards and away from in turn, one reading per reader every 100ms
+  @Benchmark
+  public ProximityTracker.Change proximityTrackerUpdate() {
+    long call = mIteration++;
+    FakeReader reader = mReaders[(int) (call % READERS)];
+    long now = (call / READERS) * 100L;
+    double phase = (now % 20000) / 20000.0;
+    double pathLoss = reader.measuredPathLoss + 20 * Math.abs(phase - 0.5) + ((call * 31) % 5 - 2);
+    return mTracker.update(reader.id, now, pathLoss, reader.autoConnectPathLoss, reader.manualConnectPathLoss);
+  }
+}
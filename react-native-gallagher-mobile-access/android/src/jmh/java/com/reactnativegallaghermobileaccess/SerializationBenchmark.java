@@ -0,0 +1,136 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.gallagher.security.mobileaccess.MobileAccessState;
+import com.gallagher.security.mobileaccess.ReaderUpdateType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The static serializers behind every event and promise, and the emit path: an event body built and handed
+// to RCTDeviceEventEmitter. On a plain JVM there is no bridge, so the maps are JavaOnlyMap rather than
+// WritableNativeMap (see Writables) and the emitter is a stub which walks the body the way the bridge's
+// marshalling would. That leaves out the JNI cost of the native maps, but not the work we do building them.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+  private static final int READERS = 50;
+
+  private static final class StubEventEmitter implements DeviceEventManagerModule.RCTDeviceEventEmitter {
+    @NonNull
+    private final Blackhole mBlackhole;
+
+    StubEventEmitter(@NonNull Blackhole blackhole) {
+      mBlackhole = blackhole;
+    }
+
+    @Override
+    public void emit(String eventName, @Nullable Object data) {
+      mBlackhole.consume(eventName);
+      mBlackhole.consume(((ReadableMap) data).toHashMap());
+    }
+  }
+
+  private List<MobileAccessState> mStates;
+  private String[] mStateNames;
+  private FakeReader[] mReaders;
+  private FakeCredential mCredential;
+  private CredentialCache.Entry mCredentialEntry;
+  private StubEventEmitter mEmitter;
+
+  private int mIteration;
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    Writables.setFactory(new Writables.Factory() {
+      @Override
+      public WritableMap createMap() {
+        return new JavaOnlyMap();
+      }
+
+      @Override
+      public WritableArray createArray() {
+        return new JavaOnlyArray();
+      }
+    });
+
+    MobileAccessState[] all = MobileAccessState.values();
+    mStates = new ArrayList<>();
+    for (int i = 0; i < Math.min(3, all.length); i++) {
+      mStates.add(all[i]);
+    }
+    mStateNames = GallagherMobileAccessModule.serializeSdkStateNames(mStates);
+    mReaders = FakeReader.many(READERS);
+    mCredential = new FakeCredential("credential-1", 1);
+    mCredentialEntry = new CredentialCache.Entry(mCredential);
+    mEmitter = new StubEventEmitter(blackhole);
+    mIteration = 0;
+  }
+
+  private FakeReader nextReader() {
+    mIteration = (mIteration + 1) % READERS;
+    return mReaders[mIteration];
+  }
+
+  @Benchmark
+  public WritableArray serializeSdkStates() {
+    return GallagherMobileAccessModule.serializeSdkStates(mStates);
+  }
+
+  @Benchmark
+  public WritableMap serializeReaderAttributes() {
+    return GallagherMobileAccessModule.serializeReaderAttributes(nextReader());
+  }
+
+  // what credential lists are built from since the cache
+  @Benchmark
+  public WritableMap serializeCachedCredential() {
+    return GallagherMobileAccessModule.serializeCredential(mCredentialEntry);
+  }
+
+  // straight from the SDK's credential, formatting the registered date every time
+  @Benchmark
+  public WritableMap serializeCredential() {
+    return GallagherMobileAccessModule.serializeCredential(mCredential);
+  }
+
+  @Benchmark
+  public void emitSdkStateChanged() {
+    mEmitter.emit(GallagherMobileAccessModule.EVENT_SDK_STATE_CHANGED,
+      GallagherMobileAccessModule.serializeSdkStateChanged(true, mStateNames));
+  }
+
+  // a readerUnavailable update, which always carries the whole reader
+  @Benchmark
+  public void emitReaderUpdated() {
+    WritableMap body = Writables.createMap();
+    body.putString("updateType", GallagherMobileAccessModule.serializeReaderUpdateType(ReaderUpdateType.READER_UNAVAILABLE));
+    body.putMap("reader", GallagherMobileAccessModule.serializeReaderAttributes(nextReader()));
+    mEmitter.emit(GallagherMobileAccessModule.EVENT_READER_UPDATED, body);
+  }
+}
@@ -0,0 +1,124 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.gallagher.security.mobileaccess.AccessListener;
+import com.gallagher.security.mobileaccess.AccessResult;
+import com.gallagher.security.mobileaccess.Reader;
+import com.gallagher.security.mobileaccess.ReaderConnectionError;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// One manual "tap to open" access request, from requestAccess to its promise settling.
+// Resolves with the same fields as an access event, plus how long each stage took:
+//   { event: "granted" | "denied" | "error", message, code?, reader,
+//     timing: { lookupMs, connectMs, decisionMs, totalMs } }
+// where connect runs from asking the SDK to onAccessStarted, and decision from there to onAccessCompleted.
+//
+// The SDK can't abandon a connection once started, so a timeout or cancel only settles the promise;
+// whatever the SDK reports afterwards is ignored. SDK callbacks, the timeout and cancel can all race,
+// and only the first to settle wins.
+class AccessRequest implements AccessListener {
+  interface OnSettled {
+    void onSettled(@NonNull AccessRequest request);
+  }
+
+  @Nullable
+  final String requestId;
+
+  @NonNull
+  private final Promise mPromise;
+
+  @NonNull
+  private final OnSettled mOnSettled;
+
+  private final AtomicBoolean mSettled = new AtomicBoolean();
+
+  private final long mStartNanos;
+  private volatile long mLookupNanos;
+  private volatile long mConnectStartNanos;
+  private volatile long mAccessStartedNanos;
+
+  @NonNull
+  final Runnable timeout = new Runnable() {
+    @Override
+    public void run() {
+      reject("access_timeout", "no access decision within the timeout");
+    }
+  };
+
+  AccessRequest(@Nullable String requestId, long startNanos, @NonNull Promise promise, @NonNull OnSettled onSettled) {
+    this.requestId = requestId;
+    mStartNanos = startNanos;
+    mPromise = promise;
+    mOnSettled = onSettled;
+  }
+
+  // called once the reader has been found, immediately before asking the SDK to connect
+  void onConnecting() {
+    mConnectStartNanos = System.nanoTime();
+    mLookupNanos = mConnectStartNanos - mStartNanos;
+  }
+
+  void cancel() {
+    reject("access_cancelled", "access request was cancelled");
+  }
+
+  void reject(@NonNull String code, @NonNull String message) {
+    if (mSettled.compareAndSet(false, true)) {
+      mOnSettled.onSettled(this);
+      mPromise.reject(code, message);
+    }
+  }
+
+  void reject(@NonNull String code, @NonNull RuntimeException e) {
+    if (mSettled.compareAndSet(false, true)) {
+      mOnSettled.onSettled(this);
+      mPromise.reject(code, e.getLocalizedMessage(), e);
+    }
+  }
+
+  // ----- AccessListener --------------------------------------------------------------------------
+
+  @Override
+  public void onAccessStarted(@NonNull Reader reader) {
+    mAccessStartedNanos = System.nanoTime();
+  }
+
+  @Override
+  public void onAccessCompleted(@NonNull Reader reader, @Nullable AccessResult accessResult, @Nullable ReaderConnectionError error) {
+    long completedNanos = System.nanoTime();
+    if (!mSettled.compareAndSet(false, true)) {
+      return; // timed out or cancelled already
+    }
+    mOnSettled.onSettled(this);
+
+    WritableMap result = new WritableNativeMap();
+    if (error != null) {
+      result.putString("event", "error");
+      result.putString("message", error.getLocalizedMessage());
+    } else if (accessResult != null) {
+      result.putString("event", accessResult.isAccessGranted() ? "granted" : "denied");
+      result.putString("message", accessResult.getAccessDecision().toString());
+      result.putInt("code", accessResult.getAccessDecision().getValue());
+    } else {
+      mPromise.reject("request_access_failed", "onAccessCompleted invoked with both result and error set to null");
+      return;
+    }
+    result.putMap("reader", GallagherMobileAccessModule.serializeReader(reader));
+
+    // if the SDK never reported onAccessStarted, the connect and decision stages can't be told apart
+    long accessStartedNanos = mAccessStartedNanos != 0 ? mAccessStartedNanos : completedNanos;
+    WritableMap timing = new WritableNativeMap();
+    timing.putDouble("lookupMs", mLookupNanos / 1e6);
+    timing.putDouble("connectMs", (accessStartedNanos - mConnectStartNanos) / 1e6);
+    timing.putDouble("decisionMs", (completedNanos - accessStartedNanos) / 1e6);
+    timing.putDouble("totalMs", (completedNanos - mStartNanos) / 1e6);
+    result.putMap("timing", timing);
+    mPromise.resolve(result);
+  }
+}
@@ -0,0 +1,170 @@
+package com.reactnativegallaghermobileaccess;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.IBinder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.gallagher.security.mobileaccess.AccessResult;
+import com.gallagher.security.mobileaccess.Reader;
+import com.gallagher.security.mobileaccess.ReaderConnectionError;
+
+// A foreground service which keeps the process, and with it the SDK, running for automatic access while the
+// app is in the background, without needing a React instance. The app can let its React instance go (e.g.
+// ReactNativeHost.clear() once the activity is destroyed) and the module carries on headless: the SDK keeps
+// making access decisions, the module keeps its journal and reader cache, and this service collects the
+// access events into BackgroundEventBuffer for JS to pick up once it is back (see takeBackgroundEvents).
+//
+// Started and stopped from JS (startBackgroundService / stopBackgroundService), after configure. The SDK is
+// configured by the module, so the service is not sticky: if the system kills the process there is nothing
+// for a restarted service to run until JS configures again.
+public class BackgroundAccessService extends Service {
+  static final String EXTRA_CHANNEL_ID = "channelId";
+  static final String EXTRA_CHANNEL_NAME = "channelName";
+  static final String EXTRA_TITLE = "title";
+  static final String EXTRA_TEXT = "text";
+  static final String EXTRA_SMALL_ICON = "smallIcon";
+
+  static final String DEFAULT_CHANNEL_ID = "gallagher-mobile-access-background";
+  static final String DEFAULT_CHANNEL_NAME = "Mobile access";
+  static final String DEFAULT_TITLE = "Mobile access";
+  static final String DEFAULT_TEXT = "Ready to unlock doors";
+
+  static final int NOTIFICATION_ID = 0x6a11a9;
+
+  private static volatile boolean sRunning = false;
+
+  static boolean isRunning() {
+    return sRunning;
+  }
+
+  static void start(@NonNull Context context, @NonNull Intent options) {
+    Intent intent = new Intent(options);
+    intent.setClass(context, BackgroundAccessService.class);
+    ContextCompat.startForegroundService(context, intent);
+  }
+
+  static void stop(@NonNull Context context) {
+    context.stopService(new Intent(context, BackgroundAccessService.class));
+  }
+
+  @NonNull
+  private final MobileAccessEventBus.Subscriber mSubscriber = new MobileAccessEventBus.SimpleSubscriber() {
+    @Override
+    public void onAccessStarted(@NonNull Reader reader) {
+      buffer(BackgroundEventBuffer.Event.of(reader, "started"));
+    }
+
+    @Override
+    public void onAccessCompleted(@NonNull Reader reader, @Nullable AccessResult result, @Nullable ReaderConnectionError error) {
+      buffer(BackgroundEventBuffer.Event.completed(reader, result, error));
+    }
+
+    @Override
+    public void onReturnToReaderRequired(@NonNull Reader reader) {
+      buffer(BackgroundEventBuffer.Event.of(reader, "returnToReaderRequired"));
+    }
+
+    @Override
+    public void onReturnedToReader(@NonNull Reader reader) {
+      buffer(BackgroundEventBuffer.Event.of(reader, "returnToReaderComplete"));
+    }
+  };
+
+  @Override
+  public void onCreate() {
+    super.onCreate();
+    sRunning = true;
+    // while we're subscribed, the module keeps the access listener hooked whether or not JS is listening
+    MobileAccessEventBus.getInstance().subscribe(mSubscriber, MobileAccessEventBus.ACCESS);
+  }
+
+  @Override
+  public int onStartCommand(@Nullable Intent intent, int flags, int startId) {
+    if (intent == null) {
+      stopSelf(); // restarted by the system; see the class comment
+      return START_NOT_STICKY;
+    }
+    startForeground(NOTIFICATION_ID, buildNotification(intent));
+    return START_NOT_STICKY;
+  }
+
+  @Override
+  public void onDestroy() {
+    MobileAccessEventBus.getInstance().unsubscribe(mSubscriber);
+    sRunning = false;
+    // nothing is keeping the process around for a headless module any more
+    GallagherMobileAccessModule.releaseHeadlessModule();
+    super.onDestroy();
+  }
+
+  @Nullable
+  @Override
+  public IBinder onBind(Intent intent) {
+    return null;
+  }
+
+  @NonNull
+  private Notification buildNotification(@NonNull Intent intent) {
+    String channelId = stringExtra(intent, EXTRA_CHANNEL_ID, DEFAULT_CHANNEL_ID);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+      // recreating an existing channel only updates its name
+      manager.createNotificationChannel(new NotificationChannel(channelId,
+        stringExtra(intent, EXTRA_CHANNEL_NAME, DEFAULT_CHANNEL_NAME), NotificationManager.IMPORTANCE_LOW));
+    }
+
+    int smallIcon = 0;
+    String iconName = intent.getStringExtra(EXTRA_SMALL_ICON);
+    if (iconName != null) {
+      smallIcon = getResources().getIdentifier(iconName, "drawable", getPackageName());
+    }
+    if (smallIcon == 0) {
+      smallIcon = getApplicationInfo().icon;
+    }
+
+    NotificationCompat.Builder builder = new NotificationCompat.Builder(this, channelId)
+      .setContentTitle(stringExtra(intent, EXTRA_TITLE, DEFAULT_TITLE))
+      .setContentText(stringExtra(intent, EXTRA_TEXT, DEFAULT_TEXT))
+      .setSmallIcon(smallIcon)
+      .setOngoing(true)
+      .setPriority(NotificationCompat.PRIORITY_LOW);
+    Intent launch = getPackageManager().getLaunchIntentForPackage(getPackageName());
+    if (launch != null) {
+      builder.setContentIntent(PendingIntent.getActivity(this, 0, launch, pendingIntentFlags()));
+    }
+    return builder.build();
+  }
+
+  // targetSdk 31 and up require every PendingIntent to say whether it is mutable; ours never need to be
+  static int pendingIntentFlags() {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      return PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
+    }
+    return PendingIntent.FLAG_UPDATE_CURRENT;
+  }
+
+  @NonNull
+  private static String stringExtra(@NonNull Intent intent, @NonNull String name, @NonNull String fallback) {
+    String value = intent.getStringExtra(name);
+    return value != null ? value : fallback;
+  }
+
+  // only what JS won't hear about itself
+  private static void buffer(@NonNull BackgroundEventBuffer.Event event) {
+    BackgroundEventBuffer buffer = BackgroundEventBuffer.getInstance();
+    if (!buffer.isJsAttached()) {
+      buffer.add(event);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.gallagher.security.mobileaccess.AccessResult;
+import com.gallagher.security.mobileaccess.Reader;
+import com.gallagher.security.mobileaccess.ReaderConnectionError;
+
+// Access events which happened while JS wasn't there to receive them, i.e. while BackgroundAccessService
+// kept the SDK running without a React instance, or with one that hadn't subscribed to "access" yet.
+// JS collects them with takeBackgroundEvents once it attaches.
+//
+// Process wide, because the service and the module come and go independently. Bounded: once full, the
+// oldest event is overwritten and counted as dropped. Holds only strings, not the SDK's reader objects.
+class BackgroundEventBuffer {
+  static final int CAPACITY = 256;
+
+  static final class Event {
+    final long timestamp;
+    @NonNull
+    final String event; // as for "access" events: started, granted, denied, error, returnToReaderRequired, ...
+    @NonNull
+    final String readerId;
+    @NonNull
+    final String readerName;
+    @Nullable
+    final String message;
+    @Nullable
+    final Integer code;
+
+    Event(long timestamp, @NonNull String event, @NonNull String readerId, @NonNull String readerName,
+          @Nullable String message, @Nullable Integer code) {
+      this.timestamp = timestamp;
+      this.event = event;
+      this.readerId = readerId;
+      this.readerName = readerName;
+      this.message = message;
+      this.code = code;
+    }
+
+    // for the access events without a result: started, returnToReaderRequired, returnToReaderComplete
+    @NonNull
+    static Event of(@NonNull Reader reader, @NonNull String event) {
+      return new Event(System.currentTimeMillis(), event, reader.getId(), reader.getName(), null, null);
+    }
+
+    @NonNull
+    static Event completed(@NonNull Reader reader, @Nullable AccessResult result, @Nullable ReaderConnectionError error) {
+      if (error != null || result == null) {
+        return new Event(System.currentTimeMillis(), "error", reader.getId(), reader.getName(),
+          error != null ? error.getLocalizedMessage() : null, null);
+      }
+      return new Event(System.currentTimeMillis(), result.isAccessGranted() ? "granted" : "denied", reader.getId(),
+        reader.getName(), result.getAccessDecision().toString(), result.getAccessDecision().getValue());
+    }
+  }
+
+  private static final BackgroundEventBuffer INSTANCE = new BackgroundEventBuffer();
+
+  @NonNull
+  static BackgroundEventBuffer getInstance() {
+    return INSTANCE;
+  }
+
+  // all guarded by this
+  @NonNull
+  private final Event[] mEvents = new Event[CAPACITY];
+  private int mNext = 0;
+  private int mCount = 0;
+  private long mDropped = 0;
+
+  // whether a module with a live React instance is emitting access events; see GallagherMobileAccessModule.updateJsAttached
+  private volatile boolean mJsAttached = false;
+
+  void setJsAttached(boolean attached) {
+    mJsAttached = attached;
+  }
+
+  boolean isJsAttached() {
+    return mJsAttached;
+  }
+
+  synchronized void add(@NonNull Event event) {
+    if (mCount == CAPACITY) {
+      mDropped++;
+    } else {
+      mCount++;
+    }
+    mEvents[mNext] = event;
+    mNext = (mNext + 1) % CAPACITY;
+  }
+
+  synchronized int size() {
+    return mCount;
+  }
+
+  // { events: [AccessEvent], dropped: number }, oldest first, and empties the buffer
+  @NonNull
+  synchronized WritableMap take() {
+    WritableArray events = new WritableNativeArray();
+    int start = (mNext - mCount + CAPACITY) % CAPACITY;
+    for (int n = 0; n < mCount; n++) {
+      int i = (start + n) % CAPACITY;
+      events.pushMap(serialize(mEvents[i]));
+      mEvents[i] = null;
+    }
+    WritableMap result = new WritableNativeMap();
+    result.putArray("events", events);
+    result.putDouble("dropped", mDropped);
+    mNext = 0;
+    mCount = 0;
+    mDropped = 0;
+    return result;
+  }
+
+  // shaped as an "access" event
+  @NonNull
+  static WritableMap serialize(@NonNull Event event) {
+    WritableMap reader = new WritableNativeMap();
+    reader.putString("id", event.readerId);
+    reader.putString("name", event.readerName);
+    WritableMap result = new WritableNativeMap();
+    result.putString("event", event.event);
+    if (event.message != null) {
+      result.putString("message", event.message);
+    }
+    if (event.code != null) {
+      result.putInt("code", event.code);
+    }
+    result.putMap("reader", reader);
+    result.putDouble("timestamp", event.timestamp);
+    return result;
+  }
+}
@@ -0,0 +1,155 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.PromiseImpl;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+// Runs a batch of credential operations (deletes, registrations) against the SDK with at most
+// maxConcurrency in flight, then resolves a single promise with one result per item, in input order:
+//   { "key": <id or url>, "success": true, "value": { ... } }
+//   { "key": <id or url>, "success": false, "code": "...", "message": "..." }
+//
+// Each item is given its own Promise, so the operations can reuse the same code paths (and error codes)
+// as their single-item @ReactMethod counterparts. Items complete on SDK callback threads, hence synchronized
+class CredentialBatch {
+  static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+  interface Operation {
+    void start(@NonNull String key, @NonNull Promise itemPromise);
+  }
+
+  @NonNull
+  private final String[] mKeys;
+
+  @NonNull
+  private final WritableMap[] mResults;
+
+  @NonNull
+  private final Operation mOperation;
+
+  @NonNull
+  private final Promise mPromise;
+
+  private final int mMaxConcurrency;
+
+  // guarded by this
+  private int mNextIndex = 0;
+  private int mCompleted = 0;
+  // slots freed up but not yet refilled, and whether a thread is already in startItems refilling them
+  private int mFreeSlots = 0;
+  private boolean mStarting = false;
+
+  CredentialBatch(@NonNull String[] keys, int maxConcurrency, @NonNull Operation operation, @NonNull Promise promise) {
+    mKeys = keys;
+    mResults = new WritableMap[keys.length];
+    mMaxConcurrency = maxConcurrency;
+    mOperation = operation;
+    mPromise = promise;
+  }
+
+  void start() {
+    if (mKeys.length == 0) {
+      mPromise.resolve(new WritableNativeArray());
+      return;
+    }
+    startItems(mMaxConcurrency);
+  }
+
+  // Items can complete synchronously inside mOperation.start (an invalid argument, a throw), and each
+  // completion frees a slot. Refilling it by calling straight back in here would recurse once per item, so
+  // a completion while any thread is already starting items only counts the slot, and that thread's loop
+  // fills it
+  private void startItems(int freedSlots) {
+    synchronized (this) {
+      mFreeSlots += freedSlots;
+      if (mStarting) {
+        return;
+      }
+      mStarting = true;
+    }
+    while (true) {
+      int index;
+      synchronized (this) {
+        if (mFreeSlots == 0 || mNextIndex >= mKeys.length) {
+          mFreeSlots = 0;
+          mStarting = false;
+          return;
+        }
+        mFreeSlots--;
+        index = mNextIndex++;
+      }
+      startItem(index);
+    }
+  }
+
+  private void startItem(final int index) {
+    final String key = mKeys[index];
+
+    Promise itemPromise = new PromiseImpl(new Callback() {
+      @Override
+      public void invoke(Object... args) {
+        WritableMap result = new WritableNativeMap();
+        result.putString("key", key);
+        result.putBoolean("success", true);
+        if (args.length > 0 && args[0] instanceof WritableMap) {
+          result.putMap("value", (WritableMap) args[0]);
+        }
+        complete(index, result);
+      }
+    }, new Callback() {
+      @Override
+      public void invoke(Object... args) {
+        WritableMap result = new WritableNativeMap();
+        result.putString("key", key);
+        result.putBoolean("success", false);
+        // PromiseImpl rejects with a map of { code, message, ... }
+        if (args.length > 0 && args[0] instanceof ReadableMap) {
+          ReadableMap errorInfo = (ReadableMap) args[0];
+          result.putString("code", getStringOrNull(errorInfo, "code"));
+          result.putString("message", getStringOrNull(errorInfo, "message"));
+        }
+        complete(index, result);
+      }
+    });
+
+    try {
+      mOperation.start(key, itemPromise);
+    } catch (RuntimeException e) {
+      itemPromise.reject("batch_item_failed", e.getLocalizedMessage(), e);
+    }
+  }
+
+  private void complete(int index, @NonNull WritableMap result) {
+    boolean finished;
+    synchronized (this) {
+      if (mResults[index] != null) {
+        return; // already settled; promises only settle once
+      }
+      mResults[index] = result;
+      mCompleted++;
+      finished = mCompleted == mKeys.length;
+    }
+    if (finished) {
+      WritableArray array = new WritableNativeArray();
+      for (WritableMap item : mResults) {
+        array.pushMap(item);
+      }
+      mPromise.resolve(array);
+    } else {
+      startItems(1);
+    }
+  }
+
+  @Nullable
+  private static String getStringOrNull(@NonNull ReadableMap map, @NonNull String key) {
+    return map.hasKey(key) && !map.isNull(key) ? map.getString(key) : null;
+  }
+}
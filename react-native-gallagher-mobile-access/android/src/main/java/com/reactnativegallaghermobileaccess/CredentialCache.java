@@ -0,0 +1,99 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.gallagher.security.mobileaccess.MobileCredential;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory copy of MobileAccess.getMobileCredentials(), keyed by id, holding each credential alongside
+// the already-formatted values serializeCredential needs. Saves going to the SDK database, and
+// re-formatting every date, on each getCredentials/deleteCredential call.
+//
+// The module invalidates it whenever the set of credentials may have changed: registration completing,
+// a delete completing, or the SDK state changing (which is how revocation shows up).
+// A generation counter stops a load which raced with an invalidation from repopulating stale data.
+class CredentialCache {
+  static final class Entry {
+    @NonNull
+    final MobileCredential credential;
+    @NonNull
+    final String id;
+    final int facilityId;
+    @NonNull
+    final String facilityName;
+    final boolean isRevoked;
+    @NonNull
+    final String registeredDate;
+
+    Entry(@NonNull MobileCredential credential) {
+      this.credential = credential;
+      this.id = credential.getId();
+      this.facilityId = credential.getFacilityId();
+      this.facilityName = credential.getFacilityName();
+      this.isRevoked = credential.isRevoked();
+      this.registeredDate = GallagherMobileAccessModule.credentialDateToString(credential.getRegisteredDate());
+    }
+  }
+
+  // null when invalid. Never mutated once published; a reload replaces it
+  @Nullable
+  private Map<String, Entry> mEntries;
+
+  private long mGeneration = 0;
+
+  private final AtomicLong mHits = new AtomicLong();
+  private final AtomicLong mMisses = new AtomicLong();
+
+  // returns the cached credentials by id, or null if they need loading. Counts as a hit or a miss
+  @Nullable
+  synchronized Map<String, Entry> get() {
+    if (mEntries != null) {
+      mHits.incrementAndGet();
+    } else {
+      mMisses.incrementAndGet();
+    }
+    return mEntries;
+  }
+
+  synchronized long getGeneration() {
+    return mGeneration;
+  }
+
+  // stores freshly loaded credentials, unless the cache was invalidated since generation was read
+  @NonNull
+  synchronized Map<String, Entry> fill(long generation, @NonNull Collection<MobileCredential> credentials) {
+    Map<String, Entry> entries = new LinkedHashMap<>();
+    for (MobileCredential credential : credentials) {
+      entries.put(credential.getId(), new Entry(credential));
+    }
+    entries = Collections.unmodifiableMap(entries);
+    if (generation == mGeneration) {
+      mEntries = entries;
+    }
+    return entries;
+  }
+
+  synchronized void invalidate() {
+    mEntries = null;
+    mGeneration++;
+  }
+
+  long getHits() {
+    return mHits.get();
+  }
+
+  long getMisses() {
+    return mMisses.get();
+  }
+
+  void resetCounters() {
+    mHits.set(0);
+    mMisses.set(0);
+  }
+}
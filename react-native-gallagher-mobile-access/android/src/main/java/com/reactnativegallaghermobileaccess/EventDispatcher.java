@@ -0,0 +1,180 @@
+package com.reactnativegallaghermobileaccess;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single background thread which serializes and emits our events.
+// The SDK invokes its listeners on its own threads (possibly the one doing BLE scanning), and a slow
+// bridge emit must never hold those up, so listener callbacks only capture their arguments and submit here.
+//
+// Tasks are submitted to one of three lanes:
+// - ACCESS: access events, which gate a door opening. Always run before anything in the other lanes,
+//   so they never wait behind a backlog of reader telemetry. Never dropped
+// - NORMAL: low-volume events such as state changes. Never dropped
+// - TELEMETRY: high-volume reader updates, where a later update supersedes an earlier one.
+//   NORMAL and TELEMETRY share a bounded queue; when it is full TELEMETRY tasks are shed according to
+//   the OverflowPolicy. NORMAL tasks are allowed to exceed the capacity
+class EventDispatcher {
+  enum Lane {
+    ACCESS,
+    NORMAL,
+    TELEMETRY,
+  }
+
+  enum OverflowPolicy {
+    DROP_OLDEST, // evict the oldest queued droppable task to make room
+    DROP_NEWEST, // discard the incoming droppable task
+  }
+
+  static final int DEFAULT_CAPACITY = 256;
+
+  private static final class Task {
+    @NonNull
+    final Runnable runnable;
+    final boolean droppable;
+
+    Task(@NonNull Runnable runnable, boolean droppable) {
+      this.runnable = runnable;
+      this.droppable = droppable;
+    }
+  }
+
+  @NonNull
+  private final HandlerThread mThread;
+
+  @NonNull
+  private final Handler mHandler;
+
+  // guarded by mQueue
+  @NonNull
+  private final ArrayDeque<Runnable> mAccessQueue = new ArrayDeque<>();
+
+  // guarded by itself
+  @NonNull
+  private final ArrayDeque<Task> mQueue = new ArrayDeque<>();
+
+  // guarded by mQueue
+  private boolean mDrainScheduled = false;
+
+  private volatile int mCapacity = DEFAULT_CAPACITY;
+
+  @NonNull
+  private volatile OverflowPolicy mOverflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+  private final AtomicLong mDropped = new AtomicLong();
+
+  @NonNull
+  private final Runnable mDrain = new Runnable() {
+    @Override
+    public void run() {
+      drain();
+    }
+  };
+
+  EventDispatcher(@NonNull String name) {
+    mThread = new HandlerThread(name);
+    mThread.start();
+    mHandler = new Handler(mThread.getLooper());
+  }
+
+  void setCapacity(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    mCapacity = capacity;
+  }
+
+  void setOverflowPolicy(@NonNull OverflowPolicy overflowPolicy) {
+    mOverflowPolicy = overflowPolicy;
+  }
+
+  long getDropped() {
+    return mDropped.get();
+  }
+
+  int getQueueDepth() {
+    synchronized (mQueue) {
+      return mAccessQueue.size() + mQueue.size();
+    }
+  }
+
+  void submit(@NonNull Runnable runnable, @NonNull Lane lane) {
+    synchronized (mQueue) {
+      if (lane == Lane.ACCESS) {
+        mAccessQueue.addLast(runnable);
+      } else {
+        boolean droppable = lane == Lane.TELEMETRY;
+        if (droppable && mQueue.size() >= mCapacity && !makeRoomLocked()) {
+          mDropped.incrementAndGet();
+          return;
+        }
+        mQueue.addLast(new Task(runnable, droppable));
+      }
+      if (!mDrainScheduled) {
+        mDrainScheduled = true;
+        mHandler.post(mDrain);
+      }
+    }
+  }
+
+  // runs the task on the dispatcher thread after the delay, bypassing the queue
+  void schedule(@NonNull Runnable runnable, long delayMs) {
+    mHandler.postDelayed(runnable, delayMs);
+  }
+
+  // unschedules anything scheduled with this runnable that hasn't run yet
+  void cancel(@NonNull Runnable runnable) {
+    mHandler.removeCallbacks(runnable);
+  }
+
+  void shutdown() {
+    mThread.quit();
+  }
+
+  // returns false if the incoming droppable task should be discarded instead
+  private boolean makeRoomLocked() {
+    if (mOverflowPolicy == OverflowPolicy.DROP_NEWEST) {
+      return false;
+    }
+    Iterator<Task> it = mQueue.iterator();
+    while (it.hasNext()) {
+      if (it.next().droppable) {
+        it.remove();
+        mDropped.incrementAndGet();
+        return true;
+      }
+    }
+    return false; // queue is full of tasks we may not drop
+  }
+
+  private void drain() {
+    while (true) {
+      Runnable runnable;
+      synchronized (mQueue) {
+        // re-checked before every task, so access events submitted mid-drain jump the queue
+        runnable = mAccessQueue.pollFirst();
+        if (runnable == null) {
+          Task task = mQueue.pollFirst();
+          if (task == null) {
+            mDrainScheduled = false;
+            return;
+          }
+          runnable = task.runnable;
+        }
+      }
+      try {
+        runnable.run();
+      } catch (RuntimeException e) {
+        // one bad event shouldn't take the dispatcher thread, and every event after it, down with it
+        Log.e("GallagherMobileAccess", "event dispatch failed", e);
+      }
+    }
+  }
+}
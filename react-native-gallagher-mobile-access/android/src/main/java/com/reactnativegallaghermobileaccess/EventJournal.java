@@ -0,0 +1,227 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The last CAPACITY SDK callbacks, kept so that "the door didn't open" can be diagnosed after the fact.
+// Every callback is recorded whether or not JS is listening, so recording has to be cheap: records live
+// in preallocated parallel arrays, overwriting the oldest, and nothing is allocated per record. Reader ids
+// are stored as an index into a table of ids, which only grows the first time a reader is seen.
+//
+// Each record is (time, type, reader, value, code), where value and code depend on the type:
+//   STATE_CHANGED           value: 1 if scanning else 0, code: number of states
+//   READER_UPDATED          value: measuredPathLoss, code: ReaderUpdateType ordinal
+//   ACCESS_STARTED          -
+//   ACCESS_COMPLETED        value: 1 if granted else 0, code: access decision, or -1 for a connection error
+//   RETURN_TO_READER_*      -
+//   REGISTRATION_*          -
+class EventJournal {
+  static final int CAPACITY = 8192;
+  static final int MAX_READERS = 1024;
+  static final int NO_READER = -1;
+
+  static final int STATE_CHANGED = 0;
+  static final int READER_UPDATED = 1;
+  static final int ACCESS_STARTED = 2;
+  static final int ACCESS_COMPLETED = 3;
+  static final int RETURN_TO_READER_REQUIRED = 4;
+  static final int RETURNED_TO_READER = 5;
+  static final int REGISTRATION_STARTED = 6;
+  static final int REGISTRATION_FINISHED = 7;
+
+  private static final String[] TYPE_NAMES = {
+    "stateChanged",
+    "readerUpdated",
+    "accessStarted",
+    "accessCompleted",
+    "returnToReaderRequired",
+    "returnedToReader",
+    "registrationStarted",
+    "registrationFinished",
+  };
+
+  // all guarded by this
+  private final long[] mTimes = new long[CAPACITY];
+  private final byte[] mTypes = new byte[CAPACITY];
+  private final short[] mReaders = new short[CAPACITY];
+  private final float[] mValues = new float[CAPACITY];
+  private final int[] mCodes = new int[CAPACITY];
+  private int mNext = 0;
+  private int mCount = 0;
+
+  @NonNull
+  private final List<String> mReaderIds = new ArrayList<>();
+  @NonNull
+  private final Map<String, Integer> mReaderIndexes = new HashMap<>();
+
+  private volatile boolean mEnabled = true;
+
+  void setEnabled(boolean enabled) {
+    mEnabled = enabled;
+  }
+
+  void record(int type, @Nullable String readerId, double value, int code) {
+    if (!mEnabled) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      int i = mNext;
+      mTimes[i] = now;
+      mTypes[i] = (byte) type;
+      mReaders[i] = (short) readerIndexLocked(readerId);
+      mValues[i] = (float) value;
+      mCodes[i] = code;
+      mNext = (i + 1) % CAPACITY;
+      if (mCount < CAPACITY) {
+        mCount++;
+      }
+    }
+  }
+
+  synchronized void clear() {
+    mNext = 0;
+    mCount = 0;
+  }
+
+  private int readerIndexLocked(@Nullable String readerId) {
+    if (readerId == null) {
+      return NO_READER;
+    }
+    Integer index = mReaderIndexes.get(readerId);
+    if (index != null) {
+      return index;
+    }
+    if (mReaderIds.size() >= MAX_READERS) {
+      return NO_READER;
+    }
+    int newIndex = mReaderIds.size();
+    mReaderIds.add(readerId);
+    mReaderIndexes.put(readerId, newIndex);
+    return newIndex;
+  }
+
+  // A copy of the records, oldest first. Taken under the lock, which record() also takes on the SDK's
+  // callback threads, so that serializing over the bridge or writing a file happens outside it
+  private static final class Snapshot {
+    final int count;
+    @NonNull
+    final long[] times;
+    @NonNull
+    final byte[] types;
+    @NonNull
+    final short[] readers;
+    @NonNull
+    final float[] values;
+    @NonNull
+    final int[] codes;
+    @NonNull
+    final String[] readerIds;
+
+    Snapshot(int count, int readerCount) {
+      this.count = count;
+      times = new long[count];
+      types = new byte[count];
+      readers = new short[count];
+      values = new float[count];
+      codes = new int[count];
+      readerIds = new String[readerCount];
+    }
+  }
+
+  @NonNull
+  private synchronized Snapshot snapshot() {
+    Snapshot snapshot = new Snapshot(mCount, mReaderIds.size());
+    // the records are in at most two runs: from start to the end of the arrays, then from 0
+    int start = (mNext - mCount + CAPACITY) % CAPACITY;
+    int first = Math.min(mCount, CAPACITY - start);
+    copyLocked(start, 0, first, snapshot);
+    copyLocked(0, first, mCount - first, snapshot);
+    mReaderIds.toArray(snapshot.readerIds);
+    return snapshot;
+  }
+
+  private void copyLocked(int from, int to, int length, @NonNull Snapshot snapshot) {
+    System.arraycopy(mTimes, from, snapshot.times, to, length);
+    System.arraycopy(mTypes, from, snapshot.types, to, length);
+    System.arraycopy(mReaders, from, snapshot.readers, to, length);
+    System.arraycopy(mValues, from, snapshot.values, to, length);
+    System.arraycopy(mCodes, from, snapshot.codes, to, length);
+  }
+
+  // Columns rather than an object per record, oldest first:
+  // { types: [name], readers: [id], time: [], type: [index into types], reader: [index into readers, or -1],
+  //   value: [], code: [] }
+  @NonNull
+  WritableMap serialize() {
+    Snapshot snapshot = snapshot();
+    WritableArray types = new WritableNativeArray();
+    for (String name : TYPE_NAMES) {
+      types.pushString(name);
+    }
+    WritableArray readers = new WritableNativeArray();
+    for (String id : snapshot.readerIds) {
+      readers.pushString(id);
+    }
+    WritableArray time = new WritableNativeArray();
+    WritableArray type = new WritableNativeArray();
+    WritableArray reader = new WritableNativeArray();
+    WritableArray value = new WritableNativeArray();
+    WritableArray code = new WritableNativeArray();
+    for (int i = 0; i < snapshot.count; i++) {
+      time.pushDouble(snapshot.times[i]);
+      type.pushInt(snapshot.types[i]);
+      reader.pushInt(snapshot.readers[i]);
+      value.pushDouble(snapshot.values[i]);
+      code.pushInt(snapshot.codes[i]);
+    }
+    WritableMap result = new WritableNativeMap();
+    result.putArray("types", types);
+    result.putArray("readers", readers);
+    result.putArray("time", time);
+    result.putArray("type", type);
+    result.putArray("reader", reader);
+    result.putArray("value", value);
+    result.putArray("code", code);
+    return result;
+  }
+
+  // one CSV line per record, oldest first: time,type,reader,value,code
+  void writeTo(@NonNull File file) throws IOException {
+    Snapshot snapshot = snapshot();
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    try {
+      writer.write("time,type,reader,value,code\n");
+      for (int i = 0; i < snapshot.count; i++) {
+        writer.write(Long.toString(snapshot.times[i]));
+        writer.write(',');
+        writer.write(TYPE_NAMES[snapshot.types[i]]);
+        writer.write(',');
+        writer.write(snapshot.readers[i] == NO_READER ? "" : snapshot.readerIds[snapshot.readers[i]]);
+        writer.write(',');
+        writer.write(Float.toString(snapshot.values[i]));
+        writer.write(',');
+        writer.write(Integer.toString(snapshot.codes[i]));
+        writer.write('\n');
+      }
+    } finally {
+      writer.close();
+    }
+  }
+}
@@ -2,11 +2,16 @@ package com.reactnativegallaghermobileaccess;
 
 import android.app.Application;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
@@ -28,7 +33,6 @@ import com.gallagher.security.mobileaccess.CloudTlsValidationMode;
 import com.gallagher.security.mobileaccess.CredentialDeleteListener;
 import com.gallagher.security.mobileaccess.DeleteOption;
 import com.gallagher.security.mobileaccess.FatalError;
-import com.gallagher.security.mobileaccess.MobileAccess;
 import com.gallagher.security.mobileaccess.MobileAccessProvider;
 import com.gallagher.security.mobileaccess.MobileAccessState;
 import com.gallagher.security.mobileaccess.MobileCredential;
@@ -46,31 +50,256 @@ import com.gallagher.security.mobileaccess.SdkStateListener;
 import com.gallagher.security.mobileaccess.SecondFactorAuthenticationType;
 import com.gallagher.security.mobileaccess.SecondFactorAuthenticationTypeSelector;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.reactnativegallaghermobileaccess.GallagherMobileAccessModule.serializeCredential;
 
 @ReactModule(name = GallagherMobileAccessModule.NAME)
-public class GallagherMobileAccessModule extends ReactContextBaseJavaModule implements SdkStateListener, ReaderUpdateListener, AutomaticAccessListener {
+public class GallagherMobileAccessModule extends ReactContextBaseJavaModule implements SdkStateListener, ReaderUpdateListener, AutomaticAccessListener, LifecycleEventListener {
   public static final String NAME = "GallagherMobileAccess";
 
+  static final String EVENT_SDK_STATE_CHANGED = "sdkStateChanged";
+  static final String EVENT_READER_UPDATED = "readerUpdated";
+  static final String EVENT_READERS_UPDATED = "readersUpdated";
+  static final String EVENT_ACCESS = "access";
+  static final String EVENT_METRICS = "metrics";
+  static final String EVENT_READER_APPROACH = "readerApproach";
+
   public GallagherMobileAccessModule(ReactApplicationContext reactContext) {
     super(reactContext);
+    reactContext.addLifecycleEventListener(this);
+    mEventBus.subscribeInternal(mJsEmitter, MobileAccessEventBus.ALL);
+    mEventBus.setOnExternalSubscribersChanged(mUpdateSdkListeners);
+    updateJsAttached();
+  }
+
+  // assigned on the configure thread, read everywhere else
+  @Nullable
+  private volatile MobileAccessBackend mInstance;
+
+  // true from the moment configure is called until the SDK is ready and every call queued in the
+  // meantime has been replayed. guarded by mCallsAwaitingConfigure
+  private boolean mConfiguring = false;
+
+  @NonNull
+  private final List<Runnable> mCallsAwaitingConfigure = new ArrayList<>();
+
+  private volatile boolean mWarmUpEnabled = true;
+
+  @NonNull
+  private final PendingRegistrations<AnonymousRegistrationListener> mPendingRegistrations = new PendingRegistrations<>();
+
+  @NonNull
+  private final Runnable mExpirePendingRegistrations = new Runnable() {
+    @Override
+    public void run() {
+      mPendingRegistrations.removeExpired(SystemClock.elapsedRealtime());
+    }
+  };
+
+  static final String READER_UPDATE_MODE_IMMEDIATE = "immediate";
+  static final String READER_UPDATE_MODE_COALESCED = "coalesced";
+  static final int DEFAULT_READER_UPDATE_INTERVAL_MS = 200;
+
+  @NonNull
+  private final JsSubscriptions mJsSubscriptions = new JsSubscriptions();
+
+  // the SDK listeners below publish each event here once; JS emission is mJsEmitter, one subscriber among others
+  @NonNull
+  private final MobileAccessEventBus mEventBus = MobileAccessEventBus.getInstance();
+
+  @NonNull
+  private final JsEmitter mJsEmitter = new JsEmitter();
+
+  // last SDK state and access events for late subscribers; see getReplay
+  @NonNull
+  private final ReplayBuffer mReplayBuffer = ReplayBuffer.getInstance();
+
+  // keeps the SDK state and access listeners hooked, so that mReplayBuffer is current even while JS isn't
+  // listening. Off by default, so that nothing is hooked until someone asks for it; mReplayBuffer still
+  // sees whatever arrives while the listeners are hooked for other reasons
+  private volatile boolean mReplayEnabled = false;
+
+  @NonNull
+  private final Runnable mUpdateSdkListeners = new Runnable() {
+    @Override
+    public void run() {
+      updateSdkListeners();
+    }
+  };
+
+  // guarded by this (volatile too so getStatesSync can read it without the lock)
+  private volatile boolean mSdkStateListenerHooked = false;
+  private boolean mReaderUpdateListenerHooked = false;
+  private boolean mAutomaticAccessListenerHooked = false;
+
+  @NonNull
+  private final SdkStateMemo mSdkStateMemo = new SdkStateMemo();
+
+  // the SDK's states as of the last onStateChanged, for getStatesSync. Only held while our SDK state listener
+  // is hooked: fetched from the SDK as it is hooked (never on the JS thread), kept current by onStateChanged,
+  // and dropped when it is unhooked, as nothing would keep it current. Shared; never modified
+  @Nullable
+  private volatile String[] mHeldStateNames;
+
+  @NonNull
+  private final CredentialCache mCredentialCache = new CredentialCache();
+
+  @NonNull
+  private final ReaderUpdateFilter mReaderUpdateFilter = new ReaderUpdateFilter();
+
+  @NonNull
+  private final ReaderStateTable mReaderStateTable = new ReaderStateTable(mReaderUpdateFilter);
+
+  // the SDK's own reader objects by id, for requestAccess, which has to hand one back to the SDK
+  @NonNull
+  private final ConcurrentHashMap<String, ReaderAttributes> mReadersById = new ConcurrentHashMap<>();
+
+  static final int DEFAULT_ACCESS_TIMEOUT_MS = 10000;
+
+  static final int READER_METADATA_WRITE_DELAY_MS = 5000;
+
+  @NonNull
+  private final ReaderMetadataCache mReaderMetadataCache = new ReaderMetadataCache();
+
+  // where mReaderMetadataCache was loaded from, for a module adopting our SDK instance
+  @Nullable
+  private volatile File mReaderMetadataDirectory;
+
+  @NonNull
+  private final AtomicBoolean mReaderMetadataWriteScheduled = new AtomicBoolean();
+
+  @NonNull
+  private final Runnable mWriteReaderMetadata = new Runnable() {
+    @Override
+    public void run() {
+      mReaderMetadataWriteScheduled.set(false); // before writing, so a change made meanwhile schedules another
+      mReaderMetadataCache.writeIfDirty();
+    }
+  };
+
+  // every SDK callback, for after-the-fact diagnosis; see dumpJournal. Process wide, so that what happened
+  // while running headless (see BackgroundAccessService) is still there for the next React instance
+  private static final EventJournal sJournal = new EventJournal();
+
+  @NonNull
+  private final EventJournal mJournal = sJournal;
+
+  // runs configure and configureSimulator off the JS thread. One thread for the whole process, so that
+  // configures from overlapping module instances (a reload, or adopting a headless module) run one after
+  // the other rather than initialising the SDK in parallel. The thread goes away when idle
+  private static final ThreadPoolExecutor sConfigureExecutor = new ThreadPoolExecutor(1, 1,
+    30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      @Override
+      public Thread newThread(@NonNull Runnable runnable) {
+        return new Thread(runnable, "GallagherMobileAccessConfigure");
+      }
+    });
+
+  static {
+    sConfigureExecutor.allowCoreThreadTimeOut(true);
   }
 
+  // a module whose React instance was destroyed while BackgroundAccessService was running, and which carries
+  // on without JS until the next module adopts its SDK instance or the service stops. guarded by the class
+  @Nullable
+  private static GallagherMobileAccessModule sHeadlessModule;
+
+  @NonNull
+  private final ProximityTracker mProximityTracker = new ProximityTracker();
+
+  // null while unlock notifications are off. guarded by this
+  @Nullable
+  private UnlockNotifier mUnlockNotifier;
+
+  // in-flight requestAccess calls which JS gave a requestId, so they can be cancelled
+  @NonNull
+  private final ConcurrentHashMap<String, AccessRequest> mAccessRequests = new ConcurrentHashMap<>();
+
+  @NonNull
+  private final ReaderUpdateCoalescer mReaderUpdateCoalescer = new ReaderUpdateCoalescer();
+
+  // serialization and emits happen here rather than on whichever thread the SDK called us back on
+  @NonNull
+  private final EventDispatcher mDispatcher = new EventDispatcher("GallagherMobileAccessEvents");
+
+  private volatile boolean mCoalesceReaderUpdates = true;
+
+  private volatile int mReaderUpdateIntervalMs = DEFAULT_READER_UPDATE_INTERVAL_MS;
+
+  private volatile boolean mPackReaderUpdates = false;
+
+  static final String BACKGROUND_SCANNING_MODE_ADAPTIVE = "adaptive";
+  static final int SCAN_POLICY_INTERVAL_MS = 15000;
+
+  @NonNull
+  private final ScanPolicy mScanPolicy = new ScanPolicy();
+
+  private volatile boolean mAdaptiveScanning = false;
+
+  // bumped whenever the scanning mode changes, which retires the previously scheduled policy evaluation
+  @NonNull
+  private final AtomicInteger mScanPolicyGeneration = new AtomicInteger();
+
+  // guarded by this
+  @NonNull
+  private String mRequestedScanMode = "";
   @Nullable
-  private MobileAccess mInstance;
+  private BluetoothScanMode mActiveScanMode;
+  @Nullable
+  private String mScanModeReason;
+
+  @NonNull
+  private final Runnable mEvaluateScanPolicy = new Runnable() {
+    @Override
+    public void run() {
+      evaluateScanPolicy();
+    }
+  };
+
+  @NonNull
+  private final ModuleMetrics mMetrics = new ModuleMetrics();
+
+  // counters owned elsewhere as they stood at the last resetMetrics, so metrics can report them per window
+  private volatile long mDroppedBaseline = 0;
+  private volatile long mSuppressedBaseline = 0;
+  private volatile long mCoalescedBaseline = 0;
+
+  private volatile int mMetricsIntervalMs = 0;
 
+  // bumped whenever the interval changes, which retires the previously scheduled metrics emitter
   @NonNull
-  private final Map<String, AnonymousRegistrationListener> mPendingRegistrations = new HashMap<>();
+  private final AtomicInteger mMetricsGeneration = new AtomicInteger();
+
+  @NonNull
+  private final Runnable mFlushReaderUpdates = new Runnable() {
+    @Override
+    public void run() {
+      flushReaderUpdates();
+    }
+  };
 
   // neccessary when working directly on the module itself, as the example app pulls
   // in a copy from NPM, then we want our local dev copy to override it
@@ -85,7 +314,204 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
     return NAME;
   }
 
-  private void sendEvent(@NonNull String eventName, @NonNull Object body) {
+  // ----- LifecycleEventListener -----------------------------------------------------------------
+
+  // foreground state is one of the adaptive scanning inputs
+
+  @Override
+  public void onHostResume() {
+    mScanPolicy.setForeground(true, SystemClock.elapsedRealtime());
+    mDispatcher.submit(mEvaluateScanPolicy, EventDispatcher.Lane.NORMAL);
+  }
+
+  @Override
+  public void onHostPause() {
+    mScanPolicy.setForeground(false, SystemClock.elapsedRealtime());
+    mDispatcher.submit(mEvaluateScanPolicy, EventDispatcher.Lane.NORMAL);
+  }
+
+  @Override
+  public void onHostDestroy() {
+    mScanPolicy.setForeground(false, SystemClock.elapsedRealtime());
+  }
+
+  @Override
+  public void onCatalystInstanceDestroy() {
+    // the bus outlives us (it is process wide); after a reload the new module instance subscribes its own emitter
+    mEventBus.unsubscribeInternal(mJsEmitter);
+    BackgroundEventBuffer.getInstance().setJsAttached(false);
+    if (BackgroundAccessService.isRunning() && mInstance != null) {
+      // carry on headless: the SDK listeners stay hooked (the service is a bus subscriber), the journal,
+      // reader cache and scan policy keep going, and nothing is sent to the destroyed React instance
+      mJsSubscriptions.clear();
+      mMetricsGeneration.incrementAndGet();
+      synchronized (GallagherMobileAccessModule.class) {
+        sHeadlessModule = this;
+      }
+      updateSdkListeners();
+      return;
+    }
+    release(true);
+  }
+
+  // Unhooks from the SDK and stops our threads. The SDK itself carries on, so shutdownBackend only matters
+  // for the simulator, and is false when a new module is adopting our instance
+  private void release(boolean shutdownBackend) {
+    mEventBus.clearOnExternalSubscribersChanged(mUpdateSdkListeners); // unless a newer module has replaced it
+    MobileAccessBackend instance;
+    synchronized (this) {
+      instance = mInstance;
+      mInstance = null; // so updateSdkListeners can't hook us again
+      if (instance != null) {
+        if (mSdkStateListenerHooked) {
+          instance.removeSdkStateListener(this);
+        }
+        if (mReaderUpdateListenerHooked) {
+          instance.removeReaderUpdateListener(this);
+        }
+        if (mAutomaticAccessListenerHooked) {
+          instance.removeAutomaticAccessListener(this);
+        }
+      }
+      mSdkStateListenerHooked = false;
+      mReaderUpdateListenerHooked = false;
+      mAutomaticAccessListenerHooked = false;
+      mHeldStateNames = null;
+    }
+    setUnlockNotifier(null); // a module adopting our SDK instance gets its own when JS configures it
+    mScanPolicyGeneration.incrementAndGet();
+    mReaderMetadataCache.writeIfDirty(); // a pending debounced write would be lost with the dispatcher
+    mDispatcher.shutdown();
+    if (shutdownBackend && instance instanceof SimulatedMobileAccessBackend) {
+      ((SimulatedMobileAccessBackend) instance).shutdown();
+    }
+  }
+
+  @Nullable
+  private static synchronized GallagherMobileAccessModule takeHeadlessModule() {
+    GallagherMobileAccessModule headless = sHeadlessModule;
+    sHeadlessModule = null;
+    return headless;
+  }
+
+  // BackgroundAccessService calls this when it stops; without it nothing would keep the process alive for us
+  static void releaseHeadlessModule() {
+    GallagherMobileAccessModule headless = takeHeadlessModule();
+    if (headless != null) {
+      headless.release(true);
+    }
+  }
+
+  // whether access events reach JS, or need buffering by BackgroundAccessService. Only the latest module's
+  // opinion counts, which is the one with the live React instance
+  private void updateJsAttached() {
+    BackgroundEventBuffer.getInstance().setJsAttached(mJsSubscriptions.has(EVENT_ACCESS));
+  }
+
+  // ----- NativeEventEmitter ----------------------------------------------------------------------
+
+  // on iOS, the event emitter has a startObserving and stopObserving, which we use to hook and unhook
+  // the SDK listeners. On Android we count the subscriptions ourselves (see JsSubscriptions) and only keep
+  // each SDK listener hooked while JS wants its events
+
+  // the event emitter exported from index.js calls this whenever JS subscribes to one of our events
+  @ReactMethod
+  public void subscribeEvent(@NonNull String eventName) {
+    mJsSubscriptions.subscribe(eventName);
+    onJsSubscribed(eventName);
+  }
+
+  // and this when that subscription is removed
+  @ReactMethod
+  public void unsubscribeEvent(@NonNull String eventName) {
+    mJsSubscriptions.unsubscribe(eventName);
+    updateSdkListeners();
+    updateJsAttached();
+  }
+
+  // NativeEventEmitter calls this whenever JS subscribes to one of our events, from React Native 0.65
+  @ReactMethod
+  public void addListener(@NonNull String eventName) {
+    mJsSubscriptions.add(eventName);
+    onJsSubscribed(eventName);
+  }
+
+  // NativeEventEmitter calls this whenever JS removes subscriptions, from React Native 0.65
+  @ReactMethod
+  public void removeListeners(int count) {
+    mJsSubscriptions.remove(count);
+    updateSdkListeners();
+    updateJsAttached();
+  }
+
+  private void onJsSubscribed(@NonNull String eventName) {
+    if (eventName.equals(EVENT_SDK_STATE_CHANGED)) {
+      mSdkStateMemo.reset();
+    }
+    if (eventName.equals(EVENT_READER_UPDATED) || eventName.equals(EVENT_READERS_UPDATED)) {
+      // a new subscriber has no prior state to apply deltas to, so send every reader in full next time
+      mReaderStateTable.markAllChanged();
+    }
+    updateSdkListeners();
+    updateJsAttached();
+  }
+
+  private synchronized void updateSdkListeners() {
+    MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      return; // configure will call us again
+    }
+
+    // each listener stays hooked for native event bus subscribers only if one of them wants its events
+    boolean wantSdkState = mJsSubscriptions.has(EVENT_SDK_STATE_CHANGED) || mReplayEnabled
+      || mEventBus.hasExternalSubscribers(MobileAccessEventBus.SDK_STATE);
+    if (wantSdkState != mSdkStateListenerHooked) {
+      if (wantSdkState) {
+        mHeldStateNames = serializeSdkStateNames(instance.getMobileAccessStates());
+        instance.addSdkStateListener(this);
+      } else {
+        instance.removeSdkStateListener(this);
+        mHeldStateNames = null;
+      }
+      mSdkStateListenerHooked = wantSdkState;
+    }
+
+    // adaptive scanning needs to know about nearby readers and access attempts whether or not JS does
+    boolean wantReaderUpdates = mJsSubscriptions.has(EVENT_READER_UPDATED) || mJsSubscriptions.has(EVENT_READERS_UPDATED)
+      || mJsSubscriptions.has(EVENT_READER_APPROACH) || mAdaptiveScanning
+      || mEventBus.hasExternalSubscribers(MobileAccessEventBus.READERS);
+    if (wantReaderUpdates != mReaderUpdateListenerHooked) {
+      if (wantReaderUpdates) {
+        instance.addReaderUpdateListener(this);
+      } else {
+        instance.removeReaderUpdateListener(this);
+        // we won't hear about readers going away while unhooked; the SDK reports them all again once we re-hook
+        mReaderStateTable.clear();
+        mReadersById.clear();
+        mProximityTracker.clear();
+      }
+      mReaderUpdateListenerHooked = wantReaderUpdates;
+    }
+
+    boolean wantAccess = mJsSubscriptions.has(EVENT_ACCESS) || mAdaptiveScanning || mReplayEnabled
+      || mEventBus.hasExternalSubscribers(MobileAccessEventBus.ACCESS);
+    if (wantAccess != mAutomaticAccessListenerHooked) {
+      if (wantAccess) {
+        instance.addAutomaticAccessListener(this);
+      } else {
+        instance.removeAutomaticAccessListener(this);
+      }
+      mAutomaticAccessListenerHooked = wantAccess;
+    }
+  }
+
+  // serializeStartNanos is when the caller started building body, for the serialization time metrics
+  private void sendEvent(@NonNull String eventName, @NonNull Object body, long serializeStartNanos) {
+    int event = ModuleMetrics.eventIndex(eventName);
+    if (event >= 0) {
+      mMetrics.recordSerialization(event, System.nanoTime() - serializeStartNanos);
+      mMetrics.recordEmit(event);
+    }
     this.getReactApplicationContext()
       .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
       .emit(eventName, body);
@@ -93,79 +519,303 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
 
   // ----- SdkStateListener ------------------------------------------------------------------------
 
+  // The module's own bookkeeping happens in these SDK callbacks; what's left afterwards is published on
+  // mEventBus, and emitting to JS happens in JsEmitter like any other subscriber
+
   @Override
-  public void onStateChanged(boolean isScanning, @NonNull Collection<MobileAccessState> states) {
-    WritableMap body = new WritableNativeMap();
-    body.putBoolean("isScanning", isScanning);
-    body.putArray("states", serializeSdkStates(states));
-    Log.i("RNGallagherMobileAccess", "sdkStateChanged: isScanning="+isScanning);
-    sendEvent("sdkStateChanged", body);
+  public void onStateChanged(final boolean isScanning, @NonNull Collection<MobileAccessState> states) {
+    mJournal.record(EventJournal.STATE_CHANGED, null, isScanning ? 1 : 0, states.size());
+    String[] stateNames = mSdkStateMemo.update(isScanning, states);
+    if (stateNames == null) {
+      return; // same as last time; subscribers already know
+    }
+    mHeldStateNames = stateNames;
+    mCredentialCache.invalidate(); // e.g. a credential was revoked
+    mEventBus.publishSdkStateChanged(isScanning, states, stateNames);
   }
 
   // ----- ReaderUpdateListener --------------------------------------------------------------------
 
   @Override
-  public void onReaderUpdated(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateType readerUpdateType) {
+  public void onReaderUpdated(@NonNull final ReaderAttributes reader, @NonNull final ReaderUpdateType readerUpdateType) {
+    mReaderUpdateFilter.recordReceived();
+    mJournal.record(EventJournal.READER_UPDATED, reader.getId(), reader.getMeasuredPathLoss(), readerUpdateType.ordinal());
+    if (readerUpdateType == ReaderUpdateType.READER_UNAVAILABLE) {
+      mReadersById.remove(reader.getId());
+      mReaderStateTable.remove(reader.getId());
+      mProximityTracker.remove(reader.getId());
+    } else {
+      mReadersById.put(reader.getId(), reader); // even if filtered below; requestAccess wants the latest object
+      if (mReaderMetadataCache.update(reader)) {
+        scheduleReaderMetadataWrite();
+      }
+      if (mJsSubscriptions.has(EVENT_READER_APPROACH)) {
+        // fed raw readings; the tracker does its own smoothing, and must see every sample to fit a trend
+        trackProximity(reader);
+      }
+      if (!mReaderStateTable.update(reader)) {
+        // insignificant path loss jitter; drop it before anyone spends time on it
+        mReaderUpdateFilter.recordSuppressed();
+        return;
+      }
+    }
+    mEventBus.publishReaderUpdated(reader, readerUpdateType);
+  }
+
+  // see JsEmitter.onReaderUpdated
+  private void emitReaderUpdate(@NonNull final ReaderAttributes reader, @NonNull final ReaderUpdateType readerUpdateType) {
+    if (!mJsSubscriptions.has(mCoalesceReaderUpdates ? EVENT_READERS_UPDATED : EVENT_READER_UPDATED)) {
+      return; // changes stay pending in mReaderStateTable for whenever someone subscribes
+    }
+
+    if (!mCoalesceReaderUpdates) {
+      // attribute changes are droppable: if one is shed, its changed fields stay pending in mReaderStateTable
+      // and go out with the next update. readerUnavailable has no next update, so it must not be dropped
+      mDispatcher.submit(new Runnable() {
+        @Override
+        public void run() {
+          long serializeStart = System.nanoTime();
+          WritableMap body = serializeReaderUpdate(reader, readerUpdateType);
+          if (body != null) {
+            sendEvent(EVENT_READER_UPDATED, body, serializeStart);
+          }
+        }
+      }, readerUpdateType == ReaderUpdateType.READER_UNAVAILABLE ? EventDispatcher.Lane.NORMAL : EventDispatcher.Lane.TELEMETRY);
+      return;
+    }
+    if (mReaderUpdateCoalescer.offer(reader, readerUpdateType)) {
+      mDispatcher.schedule(mFlushReaderUpdates, mReaderUpdateIntervalMs);
+    }
+  }
+
+  // writes are debounced: at most one per READER_METADATA_WRITE_DELAY_MS, however many readers changed
+  private void scheduleReaderMetadataWrite() {
+    if (mReaderMetadataWriteScheduled.compareAndSet(false, true)) {
+      mDispatcher.schedule(mWriteReaderMetadata, READER_METADATA_WRITE_DELAY_MS);
+    }
+  }
+
+  private void trackProximity(@NonNull ReaderAttributes reader) {
+    final ProximityTracker.Change change = mProximityTracker.update(reader.getId(), SystemClock.elapsedRealtime(),
+      reader.getMeasuredPathLoss(), reader.getAutoConnectPathLoss(), reader.getManualConnectPathLoss());
+    if (change == null) {
+      return;
+    }
+    mDispatcher.submit(new Runnable() {
+      @Override
+      public void run() {
+        sendEvent(EVENT_READER_APPROACH, serializeProximityChange(change), System.nanoTime());
+      }
+    }, EventDispatcher.Lane.NORMAL);
+  }
+
+  // emits everything the coalescer has collected since the last flush as a single "readersUpdated" event
+  private void flushReaderUpdates() {
+    List<ReaderUpdateCoalescer.Update> updates = mReaderUpdateCoalescer.drain();
+    if (updates.isEmpty()) {
+      return;
+    }
+    long serializeStart = System.nanoTime();
+    if (mPackReaderUpdates) {
+      flushPackedReaderUpdates(updates, serializeStart);
+      return;
+    }
+    WritableArray array = new WritableNativeArray();
+    for (ReaderUpdateCoalescer.Update update : updates) {
+      WritableMap map = serializeReaderUpdate(update.reader, update.updateType);
+      if (map != null) {
+        array.pushMap(map);
+      }
+    }
+    if (array.size() == 0) {
+      return;
+    }
+    WritableMap body = new WritableNativeMap();
+    body.putArray("updates", array);
+    sendEvent(EVENT_READERS_UPDATED, body, serializeStart);
+  }
+
+  // packed batches carry every field of each changed reader as a fixed-width record; see PackedReaderEncoder
+  private void flushPackedReaderUpdates(@NonNull List<ReaderUpdateCoalescer.Update> updates, long serializeStart) {
+    PackedReaderEncoder encoder = new PackedReaderEncoder();
+    for (ReaderUpdateCoalescer.Update update : updates) {
+      if (update.updateType == ReaderUpdateType.READER_UNAVAILABLE) {
+        encoder.add(update.reader, PackedReaderEncoder.UPDATE_TYPE_READER_UNAVAILABLE);
+        continue;
+      }
+      ReaderStateTable.Snapshot snapshot = mReaderStateTable.takeChanges(update.reader.getId());
+      if (snapshot != null && snapshot.changedFields != 0) {
+        encoder.add(snapshot, PackedReaderEncoder.UPDATE_TYPE_ATTRIBUTES_CHANGED);
+      }
+    }
+    if (encoder.isEmpty()) {
+      return;
+    }
     WritableMap body = new WritableNativeMap();
-    body.putString("updateType", serializeReaderUpdateType(readerUpdateType));
-    body.putMap("reader", serializeReaderAttributes(reader));
-    sendEvent("readerUpdated", body);
+    body.putString("packed", encoder.encodeToBase64());
+    sendEvent(EVENT_READERS_UPDATED, body, serializeStart);
+  }
+
+  // sends only the fields which changed since this reader was last sent to JS.
+  // returns null if nothing JS cares about has changed
+  @Nullable
+  private WritableMap serializeReaderUpdate(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateType updateType) {
+    WritableMap result = new WritableNativeMap();
+    result.putString("updateType", serializeReaderUpdateType(updateType));
+    if (updateType == ReaderUpdateType.READER_UNAVAILABLE) {
+      result.putMap("reader", serializeReaderAttributes(reader));
+      return result;
+    }
+    ReaderStateTable.Snapshot snapshot = mReaderStateTable.takeChanges(reader.getId());
+    if (snapshot == null || snapshot.changedFields == 0) {
+      return null;
+    }
+    result.putMap("reader", serializeReaderSnapshot(snapshot, snapshot.changedFields));
+    return result;
   }
 
   // ----- AccessListener --------------------------------------------------------------------------
 
+  // access events go through the dispatcher's ACCESS lane, ahead of any queued reader telemetry, and are never dropped.
+  // Each carries the time the SDK called us back, so JS can measure callback -> listener latency as
+  // Date.now() - timestamp. dispatchLatencyMs is the native share of that (queueing and serialization)
+  private void sendAccessEvent(@NonNull WritableMap body, long timestamp, long callbackNanos, long serializeStart) {
+    long latencyNanos = System.nanoTime() - callbackNanos;
+    body.putDouble("timestamp", timestamp);
+    body.putDouble("dispatchLatencyMs", latencyNanos / 1e6);
+    sendEvent(EVENT_ACCESS, body, serializeStart);
+    mMetrics.recordAccessLatency(latencyNanos);
+  }
+
   @Override
-  public void onReturnToReaderRequired(Reader reader) {
-    WritableMap body = new WritableNativeMap();
-    body.putString("event", "returnToReaderRequired");
-    body.putMap("reader", serializeReader(reader));
-    sendEvent("access", body);
+  public void onReturnToReaderRequired(final Reader reader) {
+    mJournal.record(EventJournal.RETURN_TO_READER_REQUIRED, reader.getId(), 0, 0);
+    mEventBus.publishReturnToReaderRequired(reader);
   }
 
   @Override
-  public void onReturnedToReader(Reader reader) {
-    WritableMap body = new WritableNativeMap();
-    body.putString("event", "returnToReaderComplete");
-    body.putMap("reader", serializeReader(reader));
-    sendEvent("access", body);
+  public void onReturnedToReader(final Reader reader) {
+    mJournal.record(EventJournal.RETURNED_TO_READER, reader.getId(), 0, 0);
+    mEventBus.publishReturnedToReader(reader);
   }
 
   @Override
-  public void onAccessStarted(@NonNull Reader reader) {
-    WritableMap body = new WritableNativeMap();
-    body.putString("event", "started");
-    body.putMap("reader", serializeReader(reader));
-    sendEvent("access", body);
+  public void onAccessStarted(@NonNull final Reader reader) {
+    mScanPolicy.recordAccess(SystemClock.elapsedRealtime());
+    mJournal.record(EventJournal.ACCESS_STARTED, reader.getId(), 0, 0);
+    mEventBus.publishAccessStarted(reader);
   }
 
   @Override
-  public void onAccessCompleted(@NonNull Reader reader, @Nullable AccessResult accessResult, @Nullable ReaderConnectionError error) {
-    WritableMap body = new WritableNativeMap();
-    if(error != null) {
-      body.putString("event", "error");
-      body.putString("message", error.getLocalizedMessage());
-      body.putMap("reader", serializeReader(reader));
-    } else if(accessResult != null) {
-      body.putString("event", accessResult.isAccessGranted() ? "granted" : "denied");
-      body.putString("message", accessResult.getAccessDecision().toString());
-      body.putInt("code", accessResult.getAccessDecision().getValue());
-      body.putMap("reader", serializeReader(reader));
-    } else {
+  public void onAccessCompleted(@NonNull final Reader reader, @Nullable final AccessResult accessResult, @Nullable final ReaderConnectionError error) {
+    if(error == null && accessResult == null) {
+      // checked here rather than on the dispatcher thread so the SDK sees the failure, as it always has
       throw new FatalError("onAccessCompleted invoked with both result and error set to null");
     }
-    sendEvent("access", body);
+    if (accessResult != null) {
+      mJournal.record(EventJournal.ACCESS_COMPLETED, reader.getId(), accessResult.isAccessGranted() ? 1 : 0,
+        accessResult.getAccessDecision().getValue());
+    } else {
+      mJournal.record(EventJournal.ACCESS_COMPLETED, reader.getId(), 0, -1);
+    }
+    mEventBus.publishAccessCompleted(reader, accessResult, error);
+  }
+
+  // ----- JS emission -----------------------------------------------------------------------------
+
+  // Turns bus events into JS events, for those JS has subscribed to. Runs on the SDK's callback thread like
+  // any subscriber, so it only timestamps and hands off; serialization happens on mDispatcher
+  private class JsEmitter implements MobileAccessEventBus.Subscriber, MobileAccessEventBus.StateNamesSubscriber {
+    // the bus calls onSdkStateNamesChanged instead
+    @Override
+    public void onSdkStateChanged(boolean isScanning, @NonNull Collection<MobileAccessState> states) {
+      onSdkStateNamesChanged(isScanning, serializeSdkStateNames(states));
+    }
+
+    // the publisher's memoized names (which may be a headless module's; see adopt) rather than the SDK's
+    // collection, which we don't own beyond the callback
+    @Override
+    public void onSdkStateNamesChanged(final boolean isScanning, @NonNull final String[] stateNames) {
+      if (!mJsSubscriptions.has(EVENT_SDK_STATE_CHANGED)) {
+        return;
+      }
+      mDispatcher.submit(new Runnable() {
+        @Override
+        public void run() {
+          long serializeStart = System.nanoTime();
+          sendEvent(EVENT_SDK_STATE_CHANGED, serializeSdkStateChanged(isScanning, stateNames), serializeStart);
+        }
+      }, EventDispatcher.Lane.NORMAL);
+    }
+
+    @Override
+    public void onReaderUpdated(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateType updateType) {
+      emitReaderUpdate(reader, updateType);
+    }
+
+    @Override
+    public void onAccessStarted(@NonNull Reader reader) {
+      emitAccessEvent(reader, "started", null, null);
+    }
+
+    @Override
+    public void onAccessCompleted(@NonNull Reader reader, @Nullable AccessResult result, @Nullable ReaderConnectionError error) {
+      if (error != null) {
+        emitAccessEvent(reader, "error", error, null);
+      } else {
+        emitAccessEvent(reader, result.isAccessGranted() ? "granted" : "denied", null, result);
+      }
+    }
+
+    @Override
+    public void onReturnToReaderRequired(@NonNull Reader reader) {
+      emitAccessEvent(reader, "returnToReaderRequired", null, null);
+    }
+
+    @Override
+    public void onReturnedToReader(@NonNull Reader reader) {
+      emitAccessEvent(reader, "returnToReaderComplete", null, null);
+    }
+  }
+
+  private void emitAccessEvent(@NonNull final Reader reader, @NonNull final String event,
+                               @Nullable final ReaderConnectionError error, @Nullable final AccessResult accessResult) {
+    if (!mJsSubscriptions.has(EVENT_ACCESS)) {
+      return;
+    }
+    final long timestamp = System.currentTimeMillis();
+    final long callbackNanos = System.nanoTime();
+    mDispatcher.submit(new Runnable() {
+      @Override
+      public void run() {
+        long serializeStart = System.nanoTime();
+        WritableMap body = new WritableNativeMap();
+        body.putString("event", event);
+        if (error != null) {
+          body.putString("message", error.getLocalizedMessage());
+        } else if (accessResult != null) {
+          body.putString("message", accessResult.getAccessDecision().toString());
+          body.putInt("code", accessResult.getAccessDecision().getValue());
+        }
+        body.putMap("reader", serializeReader(reader));
+        sendAccessEvent(body, timestamp, callbackNanos, serializeStart);
+      }
+    }, EventDispatcher.Lane.ACCESS);
   }
 
   // ----- MobileAccessProvider --------------------------------------------------------------------
 
+  // Configuring opens the SDK database, so it happens on a background thread rather than blocking app startup.
+  // The promise resolves once the SDK is ready. Calls made in the meantime are queued and replayed in order
+  // (see deferUntilConfigured), rather than failing with not_configured
   @ReactMethod
-  public void configure(@Nullable String databaseFilePath, @Nullable String cloudTlsValidationMode, @Nullable ReadableArray enabledFeatures) {
-    if (mInstance != null) {
-      Log.d("GallagherMobileAccess", "GallagherMobileAccess already configured; assuming deveveloper reload of JS environment");
+  public void configure(@Nullable String databaseFilePath, @Nullable String cloudTlsValidationMode, @Nullable ReadableArray enabledFeatures, @NonNull final Promise promise) {
+    if (!beginConfigure(promise)) {
       return;
     }
 
-    // TODO add support for unlock notifications
+    // the SDK's own notifications stay off; unlock notifications come from UnlockNotifier, which can throttle
+    // them (see setUnlockNotifications)
     NotificationsConfiguration notificationsConfiguration = new NotificationsConfiguration(null, null, null, null);
 
     CloudTlsValidationMode tlsMode = CloudTlsValidationMode.ANY_VALID_CERTIFICATE_REQUIRED;
@@ -173,10 +823,13 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
       switch (cloudTlsValidationMode) {
         case "anyValidCertificateRequired":
           tlsMode = CloudTlsValidationMode.ANY_VALID_CERTIFICATE_REQUIRED;
+          break;
         case "gallagherCertificateRequired":
           tlsMode = CloudTlsValidationMode.GALLAGHER_CERTIFICATE_REQUIRED;
+          break;
         case "allowInvalidCertificate":
           tlsMode = CloudTlsValidationMode.ALLOW_INVALID_CERTIFICATE;
+          break;
       }
     }
 
@@ -195,267 +848,1303 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
       }
     }
 
-    Context appContext = getReactApplicationContext().getApplicationContext();
-    MobileAccess instance = MobileAccessProvider.configure(
-      (Application) appContext,
-      databaseFilePath,
-      notificationsConfiguration,
-      sdkFeatures,
-      tlsMode,
-      null);
-
-    mInstance = instance; // must assign mInstance before we hook listeners
-
-    // android-specific:
-    // on iOS, the event emitter has a startObserving and stopObserving, which we can use to
-    // hook global SDK callbacks like addSdkStateDelegate. RN for Android doesn't seem to have
-    // anything like that, so we just hook once upon configuration, and never unhook
-    instance.addSdkStateListener(this);
-    instance.addReaderUpdateListener(this);
-    instance.addAutomaticAccessListener(this);
+    final Application application = (Application) getReactApplicationContext().getApplicationContext();
+    final CloudTlsValidationMode finalTlsMode = tlsMode;
+    configureInBackground(new BackendLoader() {
+      @NonNull
+      @Override
+      public MobileAccessBackend load() {
+        // before the SDK starts reporting readers, so that none of them are missed
+        File directory = readerMetadataDirectory(application, databaseFilePath);
+        mReaderMetadataCache.load(directory);
+        mReaderMetadataDirectory = directory;
+        return new SdkMobileAccessBackend(MobileAccessProvider.configure(
+          application,
+          databaseFilePath,
+          notificationsConfiguration,
+          sdkFeatures,
+          finalTlsMode,
+          null));
+      }
+    }, promise);
+  }
+
+  // alongside the SDK database, or in filesDir if the SDK is choosing where its database goes
+  @NonNull
+  private static File readerMetadataDirectory(@NonNull Context context, @Nullable String databaseFilePath) {
+    File directory = databaseFilePath != null ? new File(databaseFilePath).getParentFile() : null;
+    return directory != null ? directory : context.getFilesDir();
+  }
+
+  // Configures the module against SimulatedMobileAccessBackend instead of the SDK: virtual readers and
+  // credentials, no Bluetooth or network. For load testing; use instead of configure, never as well as it.
+  // options: { readerCount?, seed?, tickIntervalMs?, pathLossNoise?, registrationLatencyMs?,
+  //            registrationRequiresSecondFactor? }
+  @ReactMethod
+  public void configureSimulator(@NonNull ReadableMap options, @NonNull final Promise promise) {
+    final SimulatedMobileAccessBackend.Options simulatorOptions = new SimulatedMobileAccessBackend.Options();
+    try {
+      if (options.hasKey("readerCount")) {
+        simulatorOptions.readerCount = options.getInt("readerCount");
+      }
+      if (options.hasKey("seed")) {
+        simulatorOptions.seed = (long) options.getDouble("seed");
+      }
+      if (options.hasKey("tickIntervalMs")) {
+        simulatorOptions.tickIntervalMs = options.getInt("tickIntervalMs");
+      }
+      if (options.hasKey("pathLossNoise")) {
+        simulatorOptions.pathLossNoise = options.getDouble("pathLossNoise");
+      }
+      if (options.hasKey("registrationLatencyMs")) {
+        simulatorOptions.registrationLatencyMs = options.getInt("registrationLatencyMs");
+      }
+      if (options.hasKey("registrationRequiresSecondFactor")) {
+        simulatorOptions.registrationRequiresSecondFactor = options.getBoolean("registrationRequiresSecondFactor");
+      }
+      simulatorOptions.validate();
+    } catch (IllegalArgumentException e) {
+      promise.reject("invalid_arg", e.getLocalizedMessage(), e);
+      return;
+    }
+
+    if (!beginConfigure(promise)) {
+      return;
+    }
+    configureInBackground(new BackendLoader() {
+      @NonNull
+      @Override
+      public MobileAccessBackend load() {
+        SimulatedMobileAccessBackend simulator = new SimulatedMobileAccessBackend(simulatorOptions);
+        simulator.start();
+        return simulator;
+      }
+    }, promise);
+  }
+
+  private interface BackendLoader {
+    @NonNull
+    MobileAccessBackend load();
+  }
+
+  // returns false if configure has already happened or is underway, in which case promise has been dealt with
+  private boolean beginConfigure(@NonNull final Promise promise) {
+    GallagherMobileAccessModule headless = takeHeadlessModule();
+    if (headless != null) {
+      adopt(headless);
+      promise.resolve(null);
+      return false;
+    }
+    if (mInstance != null) {
+      Log.d("GallagherMobileAccess", "GallagherMobileAccess already configured; assuming deveveloper reload of JS environment");
+      promise.resolve(null);
+      return false;
+    }
+    synchronized (mCallsAwaitingConfigure) {
+      if (mConfiguring) {
+        // configure called twice in quick succession; resolve alongside the first
+        mCallsAwaitingConfigure.add(new Runnable() {
+          @Override
+          public void run() {
+            promise.resolve(null);
+          }
+        });
+        return false;
+      }
+      mConfiguring = true;
+      return true;
+    }
+  }
+
+  // Takes over the SDK instance of a module which was running headless, rather than configuring the SDK a
+  // second time. Its reader cache is written out and read back in here before it unhooks, and we hook straight
+  // after, so the SDK listeners are only briefly unhooked
+  private void adopt(@NonNull GallagherMobileAccessModule headless) {
+    MobileAccessBackend instance = headless.mInstance;
+    File directory = headless.mReaderMetadataDirectory;
+    if (directory != null) {
+      headless.mReaderMetadataCache.writeIfDirty();
+      mReaderMetadataCache.load(directory);
+      mReaderMetadataDirectory = directory;
+    }
+    headless.release(false);
+    mInstance = instance;
+    updateSdkListeners();
+  }
+
+  private void configureInBackground(@NonNull final BackendLoader loader, @NonNull final Promise promise) {
+    sConfigureExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          MobileAccessBackend instance = loader.load();
+
+          mInstance = instance; // must assign mInstance before we hook listeners
+
+          // hooks whichever SDK listeners JS has already subscribed to; see addListener
+          updateSdkListeners();
+
+          if (mWarmUpEnabled) {
+            warmUp(instance);
+          }
+          promise.resolve(null);
+        } catch (RuntimeException e) {
+          promise.reject("configure_failed", e.getLocalizedMessage(), e);
+        } finally {
+          // if configure failed, the replayed calls will see mInstance == null and reject with not_configured
+          replayCallsAwaitingConfigure();
+        }
+      }
+    });
+  }
+
+  // Loads the things JS almost always asks for straight after startup, so the first getCredentials is a
+  // cache hit and the SDK has already worked out its state by the first getStates
+  private void warmUp(@NonNull MobileAccessBackend instance) {
+    getCredentialsById(instance);
+    instance.getMobileAccessStates();
+  }
+
+  // whether configure should pre-load credentials and SDK state. Call before configure
+  @ReactMethod
+  public void setWarmUpEnabled(boolean enabled) {
+    mWarmUpEnabled = enabled;
+  }
+
+  // returns true if the call was queued because configure is still in progress; it will be run again once
+  // the SDK is ready
+  private boolean deferUntilConfigured(@NonNull Runnable call) {
+    synchronized (mCallsAwaitingConfigure) {
+      if (!mConfiguring) {
+        return false;
+      }
+      mCallsAwaitingConfigure.add(call);
+      return true;
+    }
+  }
+
+  private void replayCallsAwaitingConfigure() {
+    while (true) {
+      List<Runnable> calls;
+      synchronized (mCallsAwaitingConfigure) {
+        if (mCallsAwaitingConfigure.isEmpty()) {
+          mConfiguring = false; // only now can new calls skip the queue without overtaking queued ones
+          return;
+        }
+        calls = new ArrayList<>(mCallsAwaitingConfigure);
+        mCallsAwaitingConfigure.clear();
+      }
+      for (Runnable call : calls) {
+        try {
+          call.run();
+        } catch (RuntimeException e) {
+          Log.e("GallagherMobileAccess", "call queued during configure failed", e);
+        }
+      }
+    }
+  }
+
+  // ----- MobileAccess ----------------------------------------------------------------------------
+
+  @ReactMethod
+  public void setAutomaticAccessEnabled(boolean enabled) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        setAutomaticAccessEnabled(enabled);
+      }
+    })) {
+      return;
+    }
+    if (mInstance != null) {
+      mInstance.setAutomaticAccessEnabled(enabled);
+    }
+  }
+
+  @ReactMethod
+  public void setScanning(boolean enabled) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        setScanning(enabled);
+      }
+    })) {
+      return;
+    }
+    if (mInstance != null) {
+      mInstance.setScanning(enabled);
+    }
+  }
+
+  @ReactMethod
+  public void setReaderUpdateMode(@NonNull String mode) {
+    switch (mode) {
+      case READER_UPDATE_MODE_IMMEDIATE:
+        mCoalesceReaderUpdates = false;
+        // don't strand anything that was collected while we were coalescing
+        mDispatcher.submit(mFlushReaderUpdates, EventDispatcher.Lane.NORMAL);
+        break;
+      case READER_UPDATE_MODE_COALESCED:
+        mCoalesceReaderUpdates = true;
+        break;
+      default:
+        Log.w("GallagherMobileAccess", "setReaderUpdateMode: unknown mode " + mode);
+        break;
+    }
+  }
+
+  // "maps" (the default): readersUpdated carries { updates: [...] }
+  // "packed": readersUpdated carries { packed: "<base64>" }, to be read with decodePackedReaders
+  @ReactMethod
+  public void setReaderUpdateFormat(@NonNull String format) {
+    switch (format) {
+      case "maps":
+        mPackReaderUpdates = false;
+        break;
+      case "packed":
+        mPackReaderUpdates = true;
+        break;
+      default:
+        Log.w("GallagherMobileAccess", "setReaderUpdateFormat: unknown format " + format);
+        break;
+    }
+  }
+
+  @ReactMethod
+  public void setReaderUpdateInterval(int intervalMs) {
+    if (intervalMs <= 0) {
+      Log.w("GallagherMobileAccess", "setReaderUpdateInterval: interval must be positive, got " + intervalMs);
+      return;
+    }
+    mReaderUpdateIntervalMs = intervalMs;
+  }
+
+  // iOS has two modes, "standard" and "extended", which map to their nearest android equivalents.
+  // Android also accepts the name of any BluetoothScanMode, camel cased (e.g. "backgroundLowLatency"),
+  // or "adaptive", which lets ScanPolicy choose between them as circumstances change
+  @ReactMethod
+  public void setBackgroundScanningMode(@NonNull String mode) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        setBackgroundScanningMode(mode);
+      }
+    })) {
+      return;
+    }
+    MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      return;
+    }
+
+    final int generation = mScanPolicyGeneration.incrementAndGet();
+    synchronized (this) {
+      mRequestedScanMode = mode;
+    }
+    if (mode.equals(BACKGROUND_SCANNING_MODE_ADAPTIVE)) {
+      mAdaptiveScanning = true;
+      updateSdkListeners();
+      mDispatcher.schedule(new Runnable() {
+        @Override
+        public void run() {
+          if (mScanPolicyGeneration.get() != generation) {
+            return; // superseded by a later setBackgroundScanningMode
+          }
+          evaluateScanPolicy();
+          mDispatcher.schedule(this, SCAN_POLICY_INTERVAL_MS);
+        }
+      }, 0);
+      return;
+    }
+
+    mAdaptiveScanning = false;
+    updateSdkListeners();
+    BluetoothScanMode scanMode;
+    switch (mode) {
+      case "standard":
+        scanMode = BluetoothScanMode.BACKGROUND_SCREEN_ON;
+        break;
+      case "extended":
+        scanMode = BluetoothScanMode.BACKGROUND_LOW_LATENCY;
+        break;
+      default:
+        scanMode = SCAN_MODES_BY_NAME.get(mode);
+        if (scanMode == null) {
+          Log.w("GallagherMobileAccess", "setBackgroundScanningMode: unknown mode " + mode);
+          scanMode = BluetoothScanMode.FOREGROUND_ONLY;
+        }
+        break;
+    }
+    applyScanMode(instance, scanMode, "requested");
+  }
+
+  // resolves with { requested, active, reason, available }. reason says why adaptive mode chose the active mode;
+  // available lists every mode this SDK supports
+  @ReactMethod
+  public void getBackgroundScanningMode(@NonNull Promise promise) {
+    WritableMap result = new WritableNativeMap();
+    synchronized (this) {
+      result.putString("requested", mRequestedScanMode);
+      result.putString("active", mActiveScanMode != null ? SCAN_MODE_NAMES.get(mActiveScanMode) : null);
+      result.putString("reason", mScanModeReason);
+    }
+    WritableArray available = new WritableNativeArray();
+    for (String name : SCAN_MODE_NAMES.values()) {
+      available.pushString(name);
+    }
+    available.pushString(BACKGROUND_SCANNING_MODE_ADAPTIVE);
+    result.putArray("available", available);
+    promise.resolve(result);
+  }
+
+  private void evaluateScanPolicy() {
+    MobileAccessBackend instance = mInstance;
+    if (!mAdaptiveScanning || instance == null) {
+      return;
+    }
+    int nearbyReaders = 0;
+    for (ReaderAttributes reader : mReadersById.values()) {
+      if (reader.getReaderDistance() != ReaderDistance.FAR) {
+        nearbyReaders++;
+      }
+    }
+
+    int batteryPercent = -1;
+    boolean charging = false;
+    // sticky broadcast; no receiver is actually registered
+    Intent battery = getReactApplicationContext().registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+    if (battery != null) {
+      int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+      int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+      if (level >= 0 && scale > 0) {
+        batteryPercent = level * 100 / scale;
+      }
+      int status = battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+      charging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
+    }
+
+    ScanPolicy.Decision decision = mScanPolicy.decide(nearbyReaders, batteryPercent, charging, SystemClock.elapsedRealtime());
+    applyScanMode(instance, decision.mode, decision.reason);
+  }
+
+  // only calls into the SDK when the mode actually changes
+  private synchronized void applyScanMode(@NonNull MobileAccessBackend instance, @NonNull BluetoothScanMode mode, @NonNull String reason) {
+    mScanModeReason = reason;
+    if (mode == mActiveScanMode) {
+      return;
+    }
+    instance.setBluetoothBackgroundScanMode(mode);
+    mActiveScanMode = mode;
+  }
+
+  @ReactMethod
+  public void resolveInvitationUrl(@NonNull String host, @NonNull String invitationCode, @NonNull Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        resolveInvitationUrl(host, invitationCode, promise);
+      }
+    })) {
+      return;
+    }
+    MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+      return;
+    }
+    try {
+      URI url = instance.resolveInvitationUri(host, invitationCode);
+      promise.resolve(url.toString());
+    } catch (URISyntaxException e) {
+      promise.reject("invalid_arg", "host or invitationCode was invalid");
+    }
+  }
+
+  @ReactMethod
+  public void registerCredential(@NonNull String url, @NonNull Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        registerCredential(url, promise);
+      }
+    })) {
+      return;
+    }
+    MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+      return;
+    }
+    startRegistration(instance, url, promise);
+  }
+
+  private void startRegistration(@NonNull MobileAccessBackend instance, @NonNull String url, @NonNull Promise promise) {
+    URI uri;
+    try {
+      uri = new URI(url);
+    } catch (URISyntaxException e) {
+      promise.reject("invalid_arg", "url was invalid");
+      return;
+    }
+
+    AnonymousRegistrationListener listener = new AnonymousRegistrationListener(promise) {
+      @Override
+      public void cleanup(@NonNull String continuationPoint) {
+        GallagherMobileAccessModule.this.mPendingRegistrations.remove(continuationPoint);
+        mJournal.record(EventJournal.REGISTRATION_FINISHED, null, 0, 0);
+        mCredentialCache.invalidate(); // registration finished, successfully or not
+      }
+
+      @Override
+      public void awaitContinuation(@NonNull String continuationPoint) {
+        if (mPendingRegistrations.awaitContinuation(continuationPoint, SystemClock.elapsedRealtime())) {
+          // nothing else may ever look at this entry again if the user abandons the second factor prompt
+          mDispatcher.schedule(mExpirePendingRegistrations, mPendingRegistrations.getTtl());
+        }
+      }
+    };
+
+    this.mPendingRegistrations.put(listener.getmContinuationPoint(), listener);
+    mJournal.record(EventJournal.REGISTRATION_STARTED, null, 0, 0);
+    instance.registerCredential(uri, listener);
+
+    // asynchronously, one of three things happen
+
+    // 1. The SDK fails (e.g. internet offline) and then calls back on onRegistrationCompletedWithCredential:error with an error set.
+    //  - we reject the promise and abort
+
+    // 2. The SDK completes the registration because second factor was not required, and calls back with onRegistrationCompletedWithCredential and a credential
+    //  - we resolve the promise with { "completed":true, "credential": { ... } }
+
+    // 3. The SDK needs to ask for second factor
+    //  - we resolve the promise with { "completed":false, "continuationPoint": "<random>" }
+    //  - JS then sees that, and calls registerCredentialContinue(continuationPoint, secondFactorType)
+    //  - registerCredentialContinue uses the continuationPoint to find the correct underlying delegate, then calls the 2f callback
+    //  - SDK then completes registration and resolves/rejects that second promise.
+  }
+
+  // registers each url as per registerCredential, resolving with one result per url once all have finished.
+  // Items which need a second factor resolve with { "completed":false, "continuationPoint": ... } as usual,
+  // and are then continued individually with registerCredentialContinue
+  @ReactMethod
+  public void registerCredentials(@NonNull ReadableArray urls, @NonNull Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        registerCredentials(urls, promise);
+      }
+    })) {
+      return;
+    }
+    final MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+      return;
+    }
+    new CredentialBatch(toStringArray(urls), CredentialBatch.DEFAULT_MAX_CONCURRENCY, new CredentialBatch.Operation() {
+      @Override
+      public void start(@NonNull String url, @NonNull Promise itemPromise) {
+        startRegistration(instance, url, itemPromise);
+      }
+    }, promise).start();
+  }
+
+  @ReactMethod
+  public void registerCredentialContinue(@NonNull String continuationPoint, boolean secondFactorSelected, @NonNull String authenticationType, @NonNull Promise promise) {
+    // taken rather than looked up, so a concurrent continue or expiry can't also claim it
+    AnonymousRegistrationListener listener = mPendingRegistrations.take(continuationPoint, SystemClock.elapsedRealtime());
+    if(listener == null) {
+      if (mPendingRegistrations.forgetExpired(continuationPoint)) {
+        promise.reject("registration_expired", "registration was not continued in time");
+        return;
+      }
+      promise.reject("invalid_continuation_point", "continuationPoint was not valid");
+      return;
+    }
+
+    SecondFactorAuthenticationType twoFactorType;
+    switch (authenticationType) {
+      case "pin":
+        twoFactorType = SecondFactorAuthenticationType.PIN;
+        break;
+      case "fingerprint":
+      case "faceId": // android doesn't have faceId, but keep the API consistent across platforms
+      case "fingerprintOrFaceId":
+      case "touchId":
+        twoFactorType = SecondFactorAuthenticationType.FINGERPRINT;
+        break;
+      default:
+        twoFactorType = SecondFactorAuthenticationType.PIN;
+        break;
+    }
+
+    listener.continueRegistration(secondFactorSelected, twoFactorType, promise);
+  }
+
+  @ReactMethod
+  public void getStates(@NonNull Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        getStates(promise);
+      }
+    })) {
+      return;
+    }
+    MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+      return;
+    }
+    promise.resolve(serializeSdkStates(instance.getMobileAccessStates()));
+  }
+
+  // Synchronous variants of getStates and getReaders, for cheap reads on hot paths (e.g. render) which
+  // shouldn't pay for a promise round trip over the bridge. They block the JS thread for the duration
+  // of the call, so they read native state we already hold where they can. Like all synchronous native
+  // methods, these do not work under remote JS debugging.
+  // getStatesSync never calls into the SDK, which would block the JS thread: it returns the states this module
+  // holds (see mHeldStateNames), or null if it isn't holding any, i.e. before configure has finished or
+  // while nothing keeps the SDK state listener hooked. Use getStates then
+  @Nullable
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableArray getStatesSync() {
+    String[] stateNames = mHeldStateNames;
+    return stateNames != null ? serializeSdkStates(stateNames) : null;
+  }
+
+  @NonNull
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableArray getReadersSync() {
+    return serializeReaders();
+  }
+
+  @ReactMethod
+  public void getCredentials(@NonNull Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        getCredentials(promise);
+      }
+    })) {
+      return;
+    }
+    MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+      return;
+    }
+    WritableArray result = new WritableNativeArray();
+    for(CredentialCache.Entry credential : getCredentialsById(instance).values()) {
+      result.pushMap(serializeCredential(credential));
+    }
+    promise.resolve(result);
+  }
+
+  @ReactMethod
+  public void deleteCredential(@NonNull String credentialId, @NonNull Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        deleteCredential(credentialId, promise);
+      }
+    })) {
+      return;
+    }
+    MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+      return;
+    }
+    @Nullable CredentialCache.Entry candidate = getCredentialsById(instance).get(credentialId);
+    if (candidate == null) {
+      promise.reject("invalid_arg", "credentialId was invalid");
+      return;
+    }
+    startDelete(instance, candidate.credential, promise);
+  }
+
+  // deletes each credential as per deleteCredential, resolving with one result per id once all have finished
+  @ReactMethod
+  public void deleteCredentials(@NonNull ReadableArray credentialIds, @NonNull Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        deleteCredentials(credentialIds, promise);
+      }
+    })) {
+      return;
+    }
+    final MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+      return;
+    }
+    final Map<String, CredentialCache.Entry> credentialsById = getCredentialsById(instance);
+    new CredentialBatch(toStringArray(credentialIds), CredentialBatch.DEFAULT_MAX_CONCURRENCY, new CredentialBatch.Operation() {
+      @Override
+      public void start(@NonNull String credentialId, @NonNull Promise itemPromise) {
+        CredentialCache.Entry candidate = credentialsById.get(credentialId);
+        if (candidate == null) {
+          itemPromise.reject("invalid_arg", "credentialId was invalid");
+          return;
+        }
+        startDelete(instance, candidate.credential, itemPromise);
+      }
+    }, promise).start();
+  }
+
+  private void startDelete(@NonNull MobileAccessBackend instance, @NonNull MobileCredential candidate, @NonNull final Promise promise) {
+    instance.deleteMobileCredential(candidate, DeleteOption.DEFAULT, new CredentialDeleteListener() {
+      @Override
+      public void onCredentialDeleteCompleted(@Nullable MobileCredential credential, @Nullable Throwable error) {
+        mCredentialCache.invalidate();
+        if (error != null) {
+          promise.reject("delete_mobile_credential_failed", error.getLocalizedMessage(), error);
+        } else if(credential != null) {
+          promise.resolve(serializeCredential(credential));
+        } else {
+          throw new FatalError("unexpected args in onCredentialDeleteCompleted");
+        }
+      }
+    });
+  }
+
+  // served from mCredentialCache where possible; loads from the SDK database on a miss
+  @NonNull
+  private Map<String, CredentialCache.Entry> getCredentialsById(@NonNull MobileAccessBackend instance) {
+    Map<String, CredentialCache.Entry> cached = mCredentialCache.get();
+    if (cached != null) {
+      return cached;
+    }
+    long generation = mCredentialCache.getGeneration();
+    return mCredentialCache.fill(generation, instance.getMobileCredentials());
+  }
+
+  @ReactMethod
+  public void getCredentialCacheStats(@NonNull Promise promise) {
+    WritableMap result = new WritableNativeMap();
+    result.putDouble("hits", mCredentialCache.getHits());
+    result.putDouble("misses", mCredentialCache.getMisses());
+    promise.resolve(result);
+  }
+
+  @ReactMethod
+  public void resetCredentialCacheStats() {
+    mCredentialCache.resetCounters();
+  }
+
+  // options: { capacity?: number, overflowPolicy?: "dropOldest" | "dropNewest" }
+  // only droppable events (reader updates) are ever shed when the queue is full; access events never are
+  @ReactMethod
+  public void setEventQueueOptions(@NonNull ReadableMap options, @NonNull Promise promise) {
+    try {
+      if (options.hasKey("capacity")) {
+        mDispatcher.setCapacity(options.getInt("capacity"));
+      }
+      if (options.hasKey("overflowPolicy")) {
+        String policy = options.getString("overflowPolicy");
+        if ("dropOldest".equals(policy)) {
+          mDispatcher.setOverflowPolicy(EventDispatcher.OverflowPolicy.DROP_OLDEST);
+        } else if ("dropNewest".equals(policy)) {
+          mDispatcher.setOverflowPolicy(EventDispatcher.OverflowPolicy.DROP_NEWEST);
+        } else {
+          throw new IllegalArgumentException("overflowPolicy must be dropOldest or dropNewest");
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      promise.reject("invalid_arg", e.getLocalizedMessage(), e);
+      return;
+    }
+    promise.resolve(null);
+  }
+
+  // options: { ttlMs?: number, maxPending?: number }
+  // registrations left waiting longer than ttlMs for registerCredentialContinue, or the oldest waiting
+  // beyond maxPending, are ended in the SDK, and registerCredentialContinue then rejects with
+  // registration_expired. Those the SDK is still working on are not
+  @ReactMethod
+  public void setPendingRegistrationOptions(@NonNull ReadableMap options, @NonNull Promise promise) {
+    try {
+      if (options.hasKey("ttlMs")) {
+        mPendingRegistrations.setTtl((long) options.getDouble("ttlMs"));
+      }
+      if (options.hasKey("maxPending")) {
+        mPendingRegistrations.setMaxPending(options.getInt("maxPending"));
+      }
+    } catch (IllegalArgumentException e) {
+      promise.reject("invalid_arg", e.getLocalizedMessage(), e);
+      return;
+    }
+    promise.resolve(null);
+  }
+
+  // options: { minPathLossDelta?: number, distanceChangesOnly?: boolean, pathLossSmoothing?: number }
+  @ReactMethod
+  public void setReaderUpdateFilter(@NonNull ReadableMap options, @NonNull Promise promise) {
+    try {
+      if (options.hasKey("pathLossSmoothing")) {
+        mReaderUpdateFilter.setPathLossSmoothing(options.getDouble("pathLossSmoothing"));
+      }
+      if (options.hasKey("minPathLossDelta")) {
+        mReaderUpdateFilter.setMinPathLossDelta(options.getDouble("minPathLossDelta"));
+      }
+      if (options.hasKey("distanceChangesOnly")) {
+        mReaderUpdateFilter.setDistanceChangesOnly(options.getBoolean("distanceChangesOnly"));
+      }
+    } catch (IllegalArgumentException e) {
+      promise.reject("invalid_arg", e.getLocalizedMessage(), e);
+      return;
+    }
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void getReaderUpdateStats(@NonNull Promise promise) {
+    WritableMap result = new WritableNativeMap();
+    result.putDouble("received", mReaderUpdateFilter.getReceived());
+    result.putDouble("suppressed", mReaderUpdateFilter.getSuppressed());
+    result.putDouble("dropped", mDispatcher.getDropped());
+    promise.resolve(result);
+  }
+
+  @ReactMethod
+  public void resetReaderUpdateStats() {
+    mReaderUpdateFilter.resetCounters();
+  }
+
+  // ----- Background mode -------------------------------------------------------------------------
+
+  // Starts BackgroundAccessService, which keeps automatic access running while the app is in the background,
+  // even once the React instance is gone. Requires configure.
+  // options: { channelId?, channelName?, title?, text?, smallIcon? (a drawable resource name) }
+  @ReactMethod
+  public void startBackgroundService(@NonNull final ReadableMap options, @NonNull final Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        startBackgroundService(options, promise);
+      }
+    })) {
+      return;
+    }
+    if (mInstance == null) {
+      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+      return;
+    }
+    Intent intent = new Intent();
+    String[] keys = {
+      BackgroundAccessService.EXTRA_CHANNEL_ID,
+      BackgroundAccessService.EXTRA_CHANNEL_NAME,
+      BackgroundAccessService.EXTRA_TITLE,
+      BackgroundAccessService.EXTRA_TEXT,
+      BackgroundAccessService.EXTRA_SMALL_ICON,
+    };
+    for (String key : keys) {
+      if (options.hasKey(key) && !options.isNull(key)) {
+        intent.putExtra(key, options.getString(key));
+      }
+    }
+    try {
+      BackgroundAccessService.start(getReactApplicationContext(), intent);
+    } catch (RuntimeException e) {
+      // e.g. IllegalStateException when started from the background on Android 8+
+      promise.reject("start_failed", e.getLocalizedMessage(), e);
+      return;
+    }
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void stopBackgroundService(@NonNull Promise promise) {
+    BackgroundAccessService.stop(getReactApplicationContext());
+    promise.resolve(null);
+  }
+
+  // resolves with { events: [AccessEvent], dropped } for the access events JS missed while it wasn't
+  // listening, oldest first, and forgets them
+  @ReactMethod
+  public void takeBackgroundEvents(@NonNull Promise promise) {
+    promise.resolve(BackgroundEventBuffer.getInstance().take());
+  }
+
+  // ----- Replay ----------------------------------------------------------------------------------
+
+  // Everything a screen mounted late, or JS after a reload, needs to catch up, in one call rather than
+  // getStates + getCredentials + getReaders and waiting for the next events:
+  // { sdkState: { isScanning?, states, timestamp? }, readers: [ReaderAttributes], credentials: [MobileCredential],
+  //   access: [AccessEvent] }
+  // sdkState is the last sdkStateChanged; if there hasn't been one yet it comes from the SDK, without isScanning.
+  // access is the last few access events, oldest first, whether or not JS received them at the time. Without
+  // setReplayOptions({ enabled: true }) both only cover the time the listeners were hooked for other reasons
+  @ReactMethod
+  public void getReplay(@NonNull final Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        getReplay(promise);
+      }
+    })) {
+      return;
+    }
+    MobileAccessBackend instance = mInstance;
+    if (instance == null) {
+      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+      return;
+    }
+    WritableMap sdkState = mReplayBuffer.serializeSdkState();
+    if (sdkState == null) {
+      sdkState = new WritableNativeMap();
+      sdkState.putArray("states", serializeSdkStates(instance.getMobileAccessStates()));
+    }
+    WritableArray credentials = new WritableNativeArray();
+    for (CredentialCache.Entry credential : getCredentialsById(instance).values()) {
+      credentials.pushMap(serializeCredential(credential));
+    }
+    WritableMap result = new WritableNativeMap();
+    result.putMap("sdkState", sdkState);
+    result.putArray("readers", serializeReaders());
+    result.putArray("credentials", credentials);
+    result.putArray("access", mReplayBuffer.serializeAccessEvents());
+    promise.resolve(result);
+  }
+
+  // options: { enabled?: boolean, accessEvents?: number (how many to keep, up to 256; 20) }
+  @ReactMethod
+  public void setReplayOptions(@NonNull ReadableMap options, @NonNull Promise promise) {
+    try {
+      if (options.hasKey("accessEvents")) {
+        mReplayBuffer.setCapacity(options.getInt("accessEvents"));
+      }
+    } catch (IllegalArgumentException e) {
+      promise.reject("invalid_arg", e.getLocalizedMessage(), e);
+      return;
+    }
+    if (options.hasKey("enabled")) {
+      mReplayEnabled = options.getBoolean("enabled");
+      updateSdkListeners();
+    }
+    promise.resolve(null);
+  }
+
+  // ----- Unlock notifications --------------------------------------------------------------------
+
+  // Turns on a notification for each access result, or off with { enabled: false }. See UnlockNotifier for the
+  // throttling. Text templates may include {reader} and {message}.
+  // options: { enabled?, channelId?, channelName?, smallIcon?, grantedTitle?, grantedText?, deniedTitle?,
+  //            deniedText?, errorTitle?, errorText?, notifyDenied?, notifyErrors?, throttleMs? }
+  @ReactMethod
+  public void setUnlockNotifications(@NonNull ReadableMap options, @NonNull Promise promise) {
+    if (options.hasKey("enabled") && !options.getBoolean("enabled")) {
+      UnlockNotifier previous = setUnlockNotifier(null);
+      if (previous != null) {
+        previous.cancel();
+      }
+      promise.resolve(null);
+      return;
+    }
+    UnlockNotifier.Options notifierOptions = new UnlockNotifier.Options();
+    try {
+      if (options.hasKey("channelId")) {
+        notifierOptions.channelId = requireString(options, "channelId");
+      }
+      if (options.hasKey("channelName")) {
+        notifierOptions.channelName = requireString(options, "channelName");
+      }
+      if (options.hasKey("smallIcon")) {
+        notifierOptions.smallIcon = options.getString("smallIcon");
+      }
+      if (options.hasKey("grantedTitle")) {
+        notifierOptions.grantedTitle = requireString(options, "grantedTitle");
+      }
+      if (options.hasKey("grantedText")) {
+        notifierOptions.grantedText = requireString(options, "grantedText");
+      }
+      if (options.hasKey("deniedTitle")) {
+        notifierOptions.deniedTitle = requireString(options, "deniedTitle");
+      }
+      if (options.hasKey("deniedText")) {
+        notifierOptions.deniedText = requireString(options, "deniedText");
+      }
+      if (options.hasKey("errorTitle")) {
+        notifierOptions.errorTitle = requireString(options, "errorTitle");
+      }
+      if (options.hasKey("errorText")) {
+        notifierOptions.errorText = requireString(options, "errorText");
+      }
+      if (options.hasKey("notifyDenied")) {
+        notifierOptions.notifyDenied = options.getBoolean("notifyDenied");
+      }
+      if (options.hasKey("notifyErrors")) {
+        notifierOptions.notifyErrors = options.getBoolean("notifyErrors");
+      }
+      if (options.hasKey("throttleMs")) {
+        notifierOptions.throttleMs = (long) options.getDouble("throttleMs");
+      }
+      notifierOptions.validate();
+    } catch (IllegalArgumentException e) {
+      promise.reject("invalid_arg", e.getLocalizedMessage(), e);
+      return;
+    }
+    setUnlockNotifier(new UnlockNotifier(getReactApplicationContext(), notifierOptions, mDispatcher));
+    promise.resolve(null);
+  }
+
+  // resolves with { posted, collapsed }: notifications posted, and results dropped as repeats
+  @ReactMethod
+  public void getUnlockNotificationStats(@NonNull Promise promise) {
+    WritableMap result = new WritableNativeMap();
+    UnlockNotifier notifier;
+    synchronized (this) {
+      notifier = mUnlockNotifier;
+    }
+    result.putDouble("posted", notifier != null ? notifier.getPosted() : 0);
+    result.putDouble("collapsed", notifier != null ? notifier.getCollapsed() : 0);
+    promise.resolve(result);
+  }
+
+  // the notifier is a native bus subscriber, so while there is one the SDK listeners stay hooked.
+  // returns the notifier replaced
+  @Nullable
+  private UnlockNotifier setUnlockNotifier(@Nullable UnlockNotifier notifier) {
+    UnlockNotifier previous;
+    synchronized (this) {
+      previous = mUnlockNotifier;
+      mUnlockNotifier = notifier;
+    }
+    if (notifier != null) {
+      mEventBus.subscribe(notifier, MobileAccessEventBus.ACCESS);
+    }
+    if (previous != null) {
+      mEventBus.unsubscribe(previous);
+    }
+    return previous;
+  }
+
+  @NonNull
+  private static String requireString(@NonNull ReadableMap options, @NonNull String key) {
+    String value = options.getString(key);
+    if (value == null) {
+      throw new IllegalArgumentException(key + " must be a string");
+    }
+    return value;
   }
 
-  // ----- MobileAccess ----------------------------------------------------------------------------
+  // ----- Diagnostics -----------------------------------------------------------------------------
 
+  // the journal records every SDK callback into a fixed-size buffer. On by default
   @ReactMethod
-  public void setAutomaticAccessEnabled(boolean enabled) {
-    if (mInstance != null) {
-      mInstance.setAutomaticAccessEnabled(enabled);
-    }
+  public void setJournalEnabled(boolean enabled) {
+    mJournal.setEnabled(enabled);
   }
 
+  // resolves with the journal as columns; see EventJournal.serialize
   @ReactMethod
-  public void setScanning(boolean enabled) {
-    if (mInstance != null) {
-      mInstance.setScanning(enabled);
-    }
+  public void getJournal(@NonNull Promise promise) {
+    promise.resolve(mJournal.serialize());
   }
 
-  // TODO: The native android SDK has 6 options here, whilst iOS has two.
-  // Because RN provides a single frontend, we need to figure out how best to expose the extra options to android, and map the differences
+  // writes the journal as CSV to filePath, or to a new file in the app's cache directory if null.
+  // resolves with the path written
   @ReactMethod
-  public void setBackgroundScanningMode(@NonNull String mode) {
-    MobileAccess instance = mInstance;
-    if (instance == null) {
+  public void dumpJournal(@Nullable String filePath, @NonNull Promise promise) {
+    File file = filePath != null
+      ? new File(filePath)
+      : new File(getReactApplicationContext().getCacheDir(), "gallagher-mobile-access-journal-" + System.currentTimeMillis() + ".csv");
+    try {
+      mJournal.writeTo(file);
+    } catch (IOException e) {
+      promise.reject("dump_failed", e.getLocalizedMessage(), e);
       return;
     }
-    switch (mode) {
-      case "standard":
-        instance.setBluetoothBackgroundScanMode(BluetoothScanMode.BACKGROUND_SCREEN_ON);
-      case "extended":
-        instance.setBluetoothBackgroundScanMode(BluetoothScanMode.BACKGROUND_LOW_LATENCY);
-      default:
-        instance.setBluetoothBackgroundScanMode(BluetoothScanMode.FOREGROUND_ONLY);
-    }
+    promise.resolve(file.getAbsolutePath());
   }
 
   @ReactMethod
-  public void resolveInvitationUrl(@NonNull String host, @NonNull String invitationCode, @NonNull Promise promise) {
-    MobileAccess instance = mInstance;
-    if (instance == null) {
-      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
-      return;
-    }
-    try {
-      URI url = instance.resolveInvitationUri(host, invitationCode);
-      promise.resolve(url.toString());
-    } catch (URISyntaxException e) {
-      promise.reject("invalid_arg", "host or invitationCode was invalid");
-    }
+  public void getMetrics(@NonNull Promise promise) {
+    promise.resolve(serializeMetrics());
   }
 
+  // starts a new metrics window. Doesn't affect getReaderUpdateStats
   @ReactMethod
-  public void registerCredential(@NonNull String url, @NonNull Promise promise) {
-    MobileAccess instance = mInstance;
-    if (instance == null) {
-      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
+  public void resetMetrics() {
+    mMetrics.reset();
+    mDroppedBaseline = mDispatcher.getDropped();
+    mSuppressedBaseline = mReaderUpdateFilter.getSuppressed();
+    mCoalescedBaseline = mReaderUpdateCoalescer.getCoalesced();
+  }
+
+  // emits a "metrics" event, shaped as getMetrics, every intervalMs while JS is subscribed. 0 (the default) stops it
+  @ReactMethod
+  public void setMetricsInterval(int intervalMs) {
+    if (intervalMs < 0) {
+      Log.w("GallagherMobileAccess", "setMetricsInterval: interval must not be negative, got " + intervalMs);
       return;
     }
-    URI uri;
-    try {
-      uri = new URI(url);
-    } catch (URISyntaxException e) {
-      promise.reject("invalid_arg", "url was invalid");
+    mMetricsIntervalMs = intervalMs;
+    final int generation = mMetricsGeneration.incrementAndGet();
+    if (intervalMs == 0) {
       return;
     }
-
-    AnonymousRegistrationListener listener = new AnonymousRegistrationListener(promise) {
+    mDispatcher.schedule(new Runnable() {
       @Override
-      public void cleanup(@NonNull String continuationPoint) {
-        GallagherMobileAccessModule.this.mPendingRegistrations.remove(continuationPoint);
+      public void run() {
+        if (mMetricsGeneration.get() != generation) {
+          return; // superseded by a later setMetricsInterval
+        }
+        if (mJsSubscriptions.has(EVENT_METRICS)) {
+          sendEvent(EVENT_METRICS, serializeMetrics(), System.nanoTime());
+        }
+        mDispatcher.schedule(this, mMetricsIntervalMs);
       }
-    };
-
-    this.mPendingRegistrations.put(listener.getmContinuationPoint(), listener);
-    instance.registerCredential(uri, listener);
-
-    // asynchronously, one of three things happen
-
-    // 1. The SDK fails (e.g. internet offline) and then calls back on onRegistrationCompletedWithCredential:error with an error set.
-    //  - we reject the promise and abort
-
-    // 2. The SDK completes the registration because second factor was not required, and calls back with onRegistrationCompletedWithCredential and a credential
-    //  - we resolve the promise with { "completed":true, "credential": { ... } }
+    }, intervalMs);
+  }
 
-    // 3. The SDK needs to ask for second factor
-    //  - we resolve the promise with { "completed":false, "continuationPoint": "<random>" }
-    //  - JS then sees that, and calls registerCredentialContinue(continuationPoint, secondFactorType)
-    //  - registerCredentialContinue uses the continuationPoint to find the correct underlying delegate, then calls the 2f callback
-    //  - SDK then completes registration and resolves/rejects that second promise.
+  @NonNull
+  private WritableMap serializeMetrics() {
+    WritableMap result = mMetrics.serialize();
+    result.putInt("queueDepth", mDispatcher.getQueueDepth());
+    result.putDouble("dropped", mDispatcher.getDropped() - mDroppedBaseline);
+    // resetReaderUpdateStats may have zeroed the filter's counter since our baseline was taken
+    result.putDouble("suppressed", Math.max(0, mReaderUpdateFilter.getSuppressed() - mSuppressedBaseline));
+    result.putDouble("coalesced", mReaderUpdateCoalescer.getCoalesced() - mCoalescedBaseline);
+    result.putInt("pendingRegistrations", mPendingRegistrations.size());
+    return result;
   }
 
   @ReactMethod
-  public void registerCredentialContinue(@NonNull String continuationPoint, boolean secondFactorSelected, @NonNull String authenticationType, @NonNull Promise promise) {
-    AnonymousRegistrationListener listener = mPendingRegistrations.get(continuationPoint);
-    if(listener == null) {
-      promise.reject("invalid_continuation_point", "continuationPoint was not valid");
-      return;
-    }
-
-    SecondFactorAuthenticationType twoFactorType;
-    switch (authenticationType) {
-      case "pin":
-        twoFactorType = SecondFactorAuthenticationType.PIN;
-        break;
-      case "fingerprint":
-      case "faceId": // android doesn't have faceId, but keep the API consistent across platforms
-      case "fingerprintOrFaceId":
-      case "touchId":
-        twoFactorType = SecondFactorAuthenticationType.FINGERPRINT;
-        break;
-      default:
-        twoFactorType = SecondFactorAuthenticationType.PIN;
-        break;
-    }
-
-    mPendingRegistrations.remove(continuationPoint); // don't need it anymore
-    listener.continueRegistration(secondFactorSelected, twoFactorType, promise);
+  public void getReaders(@NonNull Promise promise) {
+    promise.resolve(serializeReaders());
   }
 
+  // as getReaders, in the format read by decodePackedReaders
   @ReactMethod
-  public void getStates(@NonNull Promise promise) {
-    MobileAccess instance = mInstance;
-    if (instance == null) {
-      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
-      return;
+  public void getReadersPacked(@NonNull Promise promise) {
+    PackedReaderEncoder encoder = new PackedReaderEncoder();
+    Set<String> liveIds = new HashSet<>();
+    for (ReaderStateTable.Snapshot reader : mReaderStateTable.getAll()) {
+      encoder.add(reader, PackedReaderEncoder.UPDATE_TYPE_ATTRIBUTES_CHANGED);
+      liveIds.add(reader.id);
     }
-    promise.resolve(serializeSdkStates(instance.getMobileAccessStates()));
+    for (ReaderMetadataCache.Entry reader : mReaderMetadataCache.getAll()) {
+      if (!liveIds.contains(reader.id)) {
+        encoder.addStale(reader);
+      }
+    }
+    promise.resolve(encoder.encodeToBase64());
   }
 
-  @ReactMethod
-  public void getCredentials(@NonNull Promise promise) {
-    MobileAccess instance = mInstance;
-    if (instance == null) {
-      promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
-      return;
-    }
-    Collection<MobileCredential> credentials = instance.getMobileCredentials();
+  // the readers in range, followed by any others seen on previous runs, which are marked stale until a live
+  // update for them arrives
+  @NonNull
+  private WritableArray serializeReaders() {
     WritableArray result = new WritableNativeArray();
-    for(MobileCredential credential : credentials) {
-      result.pushMap(serializeCredential(credential));
+    Set<String> liveIds = new HashSet<>();
+    for (ReaderStateTable.Snapshot reader : mReaderStateTable.getAll()) {
+      result.pushMap(serializeReaderSnapshot(reader, ReaderStateTable.ALL_FIELDS));
+      liveIds.add(reader.id);
     }
-    promise.resolve(result);
+    for (ReaderMetadataCache.Entry reader : mReaderMetadataCache.getAll()) {
+      if (!liveIds.contains(reader.id)) {
+        result.pushMap(serializeStaleReader(reader));
+      }
+    }
+    return result;
   }
 
+  // Manual connect to a reader JS has seen in reader updates (so reader events must be subscribed to).
+  // reader: { id, timeoutMs?, requestId? }. Pass a requestId to be able to cancelAccessRequest it.
+  // Resolves as described in AccessRequest; rejects with access_timeout after timeoutMs (10s by default)
   @ReactMethod
-  public void deleteCredential(@NonNull String credentialId, @NonNull Promise promise) {
-    MobileAccess instance = mInstance;
+  public void requestAccess(@NonNull ReadableMap reader, @NonNull Promise promise) {
+    if (deferUntilConfigured(new Runnable() {
+      @Override
+      public void run() {
+        requestAccess(reader, promise);
+      }
+    })) {
+      return;
+    }
+    long startNanos = System.nanoTime();
+    MobileAccessBackend instance = mInstance;
     if (instance == null) {
       promise.reject("not_configured", "GallagherMobileAccess.configure has not been called yet");
       return;
     }
-    @Nullable MobileCredential candidate = null;
-    for(MobileCredential credential: instance.getMobileCredentials()) {
-      if(credential.getId().equals(credentialId)) {
-        candidate = credential;
-        break;
-      }
+    if (instance instanceof SimulatedMobileAccessBackend) {
+      promise.reject("not_supported", "access is not simulated");
+      return;
     }
-    if (candidate == null) {
-      promise.reject("invalid_arg", "credentialId was invalid");
+    if (!reader.hasKey("id") || reader.isNull("id")) {
+      promise.reject("invalid_arg", "reader.id is required");
       return;
     }
-    instance.deleteMobileCredential(candidate, DeleteOption.DEFAULT, new CredentialDeleteListener() {
+    int timeoutMs = reader.hasKey("timeoutMs") ? reader.getInt("timeoutMs") : DEFAULT_ACCESS_TIMEOUT_MS;
+    if (timeoutMs <= 0) {
+      promise.reject("invalid_arg", "reader.timeoutMs must be positive");
+      return;
+    }
+    String requestId = reader.hasKey("requestId") ? reader.getString("requestId") : null;
+
+    AccessRequest request = new AccessRequest(requestId, startNanos, promise, new AccessRequest.OnSettled() {
       @Override
-      public void onCredentialDeleteCompleted(@Nullable MobileCredential credential, @Nullable Throwable error) {
-        if (error != null) {
-          promise.reject("delete_mobile_credential_failed", error.getLocalizedMessage(), error);
-        } else if(credential != null) {
-          promise.resolve(serializeCredential(credential));
-        } else {
-          throw new FatalError("unexpected args in onCredentialDeleteCompleted");
+      public void onSettled(@NonNull AccessRequest request) {
+        mDispatcher.cancel(request.timeout); // settled some other way, or this is the timeout running
+        if (request.requestId != null) {
+          mAccessRequests.remove(request.requestId, request);
         }
       }
     });
+    if (requestId != null && mAccessRequests.putIfAbsent(requestId, request) != null) {
+      promise.reject("invalid_arg", "an access request with this requestId is already in progress");
+      return;
+    }
+
+    ReaderAttributes sdkReader = mReadersById.get(reader.getString("id"));
+    if (sdkReader == null) {
+      request.reject("reader_not_found", "reader is not in range, or reader updates are not subscribed to");
+      return;
+    }
+    mDispatcher.schedule(request.timeout, timeoutMs);
+    mScanPolicy.recordAccess(SystemClock.elapsedRealtime());
+    request.onConnecting();
+    try {
+      instance.requestAccess(sdkReader, request);
+    } catch (RuntimeException e) {
+      request.reject("request_access_failed", e);
+    }
   }
 
+  // rejects the request's promise with access_cancelled. The SDK may still complete the connection
   @ReactMethod
-  public void requestAccess(@NonNull ReadableMap reader) {
-
+  public void cancelAccessRequest(@NonNull String requestId) {
+    AccessRequest request = mAccessRequests.get(requestId);
+    if (request != null) {
+      request.cancel();
+    }
   }
 
   // ----- Serialization Helpers -------------------------------------------------------------------
 
+  // The enum-valued fields are looked up in tables built once at class load, rather than running a switch
+  // (and in the default case, concatenating an "unknown:" string) for every value of every event.
+  // The *Name functions below are only used to build the tables
+
+  private static final EnumMap<MobileAccessState, String> SDK_STATE_NAMES = new EnumMap<>(MobileAccessState.class);
+  private static final EnumMap<AccessMode, String> ACCESS_MODE_NAMES = new EnumMap<>(AccessMode.class);
+  private static final EnumMap<ReaderUpdateType, String> READER_UPDATE_TYPE_NAMES = new EnumMap<>(ReaderUpdateType.class);
+  private static final EnumMap<ReaderDistance, String> READER_DISTANCE_NAMES = new EnumMap<>(ReaderDistance.class);
+  private static final EnumMap<BluetoothScanMode, String> SCAN_MODE_NAMES = new EnumMap<>(BluetoothScanMode.class);
+  private static final Map<String, BluetoothScanMode> SCAN_MODES_BY_NAME = new HashMap<>();
+
+  static {
+    for (MobileAccessState state : MobileAccessState.values()) {
+      SDK_STATE_NAMES.put(state, sdkStateName(state));
+    }
+    for (AccessMode mode : AccessMode.values()) {
+      ACCESS_MODE_NAMES.put(mode, accessModeName(mode));
+    }
+    for (ReaderUpdateType updateType : ReaderUpdateType.values()) {
+      READER_UPDATE_TYPE_NAMES.put(updateType, readerUpdateTypeName(updateType));
+    }
+    for (ReaderDistance distance : ReaderDistance.values()) {
+      READER_DISTANCE_NAMES.put(distance, readerDistanceName(distance));
+    }
+    for (BluetoothScanMode mode : BluetoothScanMode.values()) {
+      String name = scanModeName(mode);
+      SCAN_MODE_NAMES.put(mode, name);
+      SCAN_MODES_BY_NAME.put(name, mode);
+    }
+  }
+
   @NonNull
   static WritableArray serializeSdkStates(@NonNull Collection<MobileAccessState> states) {
-    WritableArray result = new WritableNativeArray();
+    WritableArray result = Writables.createArray();
     for(MobileAccessState state: states) {
-      switch (state) {
-        case ERROR_DEVICE_NOT_SUPPORTED:
-          result.pushString("errorDeviceNotSupported");
-          break;
-        case ERROR_NO_PASSCODE_SET:
-          result.pushString("errorNoPasscodeSet");
-          break;
-        case ERROR_NO_CREDENTIALS:
-          result.pushString("errorNoCredentials");
-          break;
-        case ERROR_UNSUPPORTED_OS_VERSION:
-          result.pushString("errorUnsupportedOsVersion");
-          break;
-        case ERROR_NO_BLE_FEATURE:
-          result.pushString("errorNoBleFeature");
-          break;
-        case BLE_ERROR_LOCATION_SERVICE_DISABLED:
-          result.pushString("bleErrorLocationServiceDisabled");
-          break;
-        case BLE_ERROR_NO_LOCATION_PERMISSION:
-          result.pushString("bleErrorNoLocationPermission");
-          break;
+      result.pushString(serializeSdkState(state));
+    }
+    return result;
+  }
+
+  // the sdkStateChanged event body: { isScanning, states }
+  @NonNull
+  static WritableMap serializeSdkStateChanged(boolean isScanning, @NonNull String[] stateNames) {
+    WritableMap result = Writables.createMap();
+    result.putBoolean("isScanning", isScanning);
+    result.putArray("states", serializeSdkStates(stateNames));
+    return result;
+  }
+
+  @NonNull
+  static String[] serializeSdkStateNames(@NonNull Collection<MobileAccessState> states) {
+    String[] result = new String[states.size()];
+    int i = 0;
+    for (MobileAccessState state : states) {
+      result[i++] = serializeSdkState(state);
+    }
+    return result;
+  }
+
+  @NonNull
+  static WritableArray serializeSdkStates(@NonNull String[] stateNames) {
+    WritableArray result = Writables.createArray();
+    for(String name: stateNames) {
+      result.pushString(name);
+    }
+    return result;
+  }
+
+  @NonNull
+  static String serializeSdkState(@NonNull MobileAccessState state) {
+    return SDK_STATE_NAMES.get(state);
+  }
+
+  @NonNull
+  private static String sdkStateName(@NonNull MobileAccessState state) {
+    switch (state) {
+      case ERROR_DEVICE_NOT_SUPPORTED:
+        return "errorDeviceNotSupported";
+      case ERROR_NO_PASSCODE_SET:
+        return "errorNoPasscodeSet";
+      case ERROR_NO_CREDENTIALS:
+        return "errorNoCredentials";
+      case ERROR_UNSUPPORTED_OS_VERSION:
+        return "errorUnsupportedOsVersion";
+      case ERROR_NO_BLE_FEATURE:
+        return "errorNoBleFeature";
+      case BLE_ERROR_LOCATION_SERVICE_DISABLED:
+        return "bleErrorLocationServiceDisabled";
+      case BLE_ERROR_NO_LOCATION_PERMISSION:
+        return "bleErrorNoLocationPermission";
 //        case .bleWarningExtendedBackgroundScanningRequiresLocationServiceEnabled: return
-        case EXTENDED_BACKGROUND_SCANNING_REQUIRES_LOCATION_SERVICES:
-          result.pushString("bleWarningExtendedBackgroundScanningRequiresLocationServiceEnabled");
-          break;
+      case EXTENDED_BACKGROUND_SCANNING_REQUIRES_LOCATION_SERVICES:
+        return "bleWarningExtendedBackgroundScanningRequiresLocationServiceEnabled";
 //        case .bleWarningExtendedBackgroundScanningRequiresLocationAlwaysPermission: return "bleWarningExtendedBackgroundScanningRequiresLocationAlwaysPermission"
-        case BLE_ERROR_DISABLED:
-          result.pushString("bleErrorDisabled");
-          break;
-        case BLE_ERROR_UNAUTHORIZED:
-          result.pushString("bleErrorUnauthorized");
-          break;
-        case NFC_ERROR_DISABLED:
-          result.pushString("nfcErrorDisabled");
-          break;
-        case NO_NFC_FEATURE:
-          result.pushString("noNfcFeature");
-          break;
-        case CREDENTIAL_REQUIRES_BIOMETRICS_ENROLMENT:
-          result.pushString("credentialRequiresBiometricsEnrolment");
-          break;
+      case BLE_ERROR_DISABLED:
+        return "bleErrorDisabled";
+      case BLE_ERROR_UNAUTHORIZED:
+        return "bleErrorUnauthorized";
+      case NFC_ERROR_DISABLED:
+        return "nfcErrorDisabled";
+      case NO_NFC_FEATURE:
+        return "noNfcFeature";
+      case CREDENTIAL_REQUIRES_BIOMETRICS_ENROLMENT:
+        return "credentialRequiresBiometricsEnrolment";
 //        case .credentialBiometricsLockedOut: return "credentialBiometricsLockedOut"
-        case BLE_ERROR_NO_BACKGROUND_LOCATION_PERMISSION:
-          result.pushString("bleErrorNoBackgroundLocationPermission");
-          break;
-        default:
-          result.pushString("unknown:" + state.toString());
-          break;
-      }
+      case BLE_ERROR_NO_BACKGROUND_LOCATION_PERMISSION:
+        return "bleErrorNoBackgroundLocationPermission";
+      default:
+        return "unknown:" + state.toString();
     }
-    return result;
   }
 
   @NonNull
   static String serializeAccessMode(@NonNull AccessMode mode) {
+    return ACCESS_MODE_NAMES.get(mode);
+  }
+
+  @NonNull
+  private static String accessModeName(@NonNull AccessMode mode) {
     switch (mode) {
       case EVAC: return "evac";
       case ACCESS: return "access";
@@ -467,6 +2156,11 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
 
   @NonNull
   static String serializeReaderUpdateType(@NonNull ReaderUpdateType updateType) {
+    return READER_UPDATE_TYPE_NAMES.get(updateType);
+  }
+
+  @NonNull
+  private static String readerUpdateTypeName(@NonNull ReaderUpdateType updateType) {
     switch (updateType) {
       case ATTRIBUTES_CHANGED: return "attributesChanged";
       case READER_UNAVAILABLE: return "readerUnavailable";
@@ -476,6 +2170,11 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
 
   @NonNull
   static String serializeReaderDistance(@NonNull ReaderDistance distance) {
+    return READER_DISTANCE_NAMES.get(distance);
+  }
+
+  @NonNull
+  private static String readerDistanceName(@NonNull ReaderDistance distance) {
     switch(distance) {
       case FAR: return "far";
       case MEDIUM: return "medium";
@@ -484,9 +2183,52 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
     }
   }
 
+  // { id, trend, slope, pathLoss, secondsToManualConnect?, secondsToAutoConnect? }; the estimates only while approaching
+  @NonNull
+  static WritableMap serializeProximityChange(@NonNull ProximityTracker.Change change) {
+    WritableMap result = Writables.createMap();
+    result.putString("id", change.id);
+    switch (change.trend) {
+      case ProximityTracker.TREND_APPROACHING:
+        result.putString("trend", "approaching");
+        break;
+      case ProximityTracker.TREND_RECEDING:
+        result.putString("trend", "receding");
+        break;
+      default:
+        result.putString("trend", "steady");
+        break;
+    }
+    result.putDouble("slope", change.slopeDbPerSecond);
+    result.putDouble("pathLoss", change.pathLoss);
+    if (!Double.isNaN(change.secondsToManualConnect)) {
+      result.putDouble("secondsToManualConnect", change.secondsToManualConnect);
+    }
+    if (!Double.isNaN(change.secondsToAutoConnect)) {
+      result.putDouble("secondsToAutoConnect", change.secondsToAutoConnect);
+    }
+    return result;
+  }
+
+  // every mode the SDK has, rather than a switch over the ones we know of: BACKGROUND_LOW_LATENCY -> backgroundLowLatency
+  @NonNull
+  private static String scanModeName(@NonNull BluetoothScanMode mode) {
+    StringBuilder result = new StringBuilder();
+    boolean upper = false;
+    for (char c : mode.name().toLowerCase(Locale.ROOT).toCharArray()) {
+      if (c == '_') {
+        upper = true;
+      } else {
+        result.append(upper ? Character.toUpperCase(c) : c);
+        upper = false;
+      }
+    }
+    return result.toString();
+  }
+
   @NonNull
   static WritableMap serializeReader(@NonNull Reader reader) {
-    WritableMap result = new WritableNativeMap();
+    WritableMap result = Writables.createMap();
     result.putString("id", reader.getId());
     result.putString("name", reader.getName());
     return result;
@@ -494,7 +2236,7 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
 
   @NonNull
   static WritableMap serializeReaderAttributes(@NonNull ReaderAttributes reader) {
-    WritableMap result = new WritableNativeMap();
+    WritableMap result = Writables.createMap();
     result.putString("id", reader.getId());
     result.putString("name", reader.getName());
     result.putDouble("measuredPathLoss", reader.getMeasuredPathLoss());
@@ -508,6 +2250,77 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
     return result;
   }
 
+  // id is always present, the remaining fields only if set in the fields mask
+  @NonNull
+  static WritableMap serializeReaderSnapshot(@NonNull ReaderStateTable.Snapshot reader, int fields) {
+    WritableMap result = Writables.createMap();
+    result.putString("id", reader.id);
+    if ((fields & ReaderStateTable.FIELD_NAME) != 0) {
+      result.putString("name", reader.name);
+    }
+    if ((fields & ReaderStateTable.FIELD_MEASURED_PATH_LOSS) != 0) {
+      result.putDouble("measuredPathLoss", reader.measuredPathLoss);
+    }
+    if ((fields & ReaderStateTable.FIELD_DISTANCE) != 0) {
+      result.putString("distance", serializeReaderDistance(reader.distance));
+    }
+    if ((fields & ReaderStateTable.FIELD_AUTO_CONNECT_PATH_LOSS) != 0) {
+      result.putDouble("autoConnectPathLoss", reader.autoConnectPathLoss);
+    }
+    if ((fields & ReaderStateTable.FIELD_MANUAL_CONNECT_PATH_LOSS) != 0) {
+      result.putDouble("manualConnectPathLoss", reader.manualConnectPathLoss);
+    }
+    if ((fields & ReaderStateTable.FIELD_IS_BLE_MANUAL_CONNECT_ENABLED) != 0) {
+      result.putBoolean("isBleManualConnectEnabled", reader.isBleManualConnectEnabled);
+    }
+    if ((fields & ReaderStateTable.FIELD_IS_BLE_AUTO_CONNECT_ENABLED) != 0) {
+      result.putBoolean("isBleAutoConnectEnabled", reader.isBleAutoConnectEnabled);
+    }
+    if ((fields & ReaderStateTable.FIELD_IS_SECOND_FACTOR_REQUIRED) != 0) {
+      result.putBoolean("isSecondFactorRequired", reader.isSecondFactorRequired);
+    }
+    if ((fields & ReaderStateTable.FIELD_IS_BLE_ACTIONS_ENABLED) != 0) {
+      result.putBoolean("isBleActionsEnabled", reader.isBleActionsEnabled);
+    }
+    return result;
+  }
+
+  // no measuredPathLoss or distance; we haven't heard from the reader this run
+  @NonNull
+  static WritableMap serializeStaleReader(@NonNull ReaderMetadataCache.Entry reader) {
+    WritableMap result = Writables.createMap();
+    result.putString("id", reader.id);
+    result.putString("name", reader.name);
+    result.putDouble("autoConnectPathLoss", reader.autoConnectPathLoss);
+    result.putDouble("manualConnectPathLoss", reader.manualConnectPathLoss);
+    result.putBoolean("isBleManualConnectEnabled", reader.isBleManualConnectEnabled());
+    result.putBoolean("isBleAutoConnectEnabled", reader.isBleAutoConnectEnabled());
+    result.putBoolean("isSecondFactorRequired", reader.isSecondFactorRequired());
+    result.putBoolean("isBleActionsEnabled", reader.isBleActionsEnabled());
+    result.putBoolean("stale", true);
+    return result;
+  }
+
+  @NonNull
+  static WritableMap serializeCredential(@NonNull CredentialCache.Entry credential) {
+    WritableMap result = Writables.createMap();
+    result.putString("id", credential.id);
+    result.putInt("facilityId", credential.facilityId);
+    result.putString("facilityName", credential.facilityName);
+    result.putBoolean("isRevoked", credential.isRevoked);
+    result.putString("registeredDate", credential.registeredDate);
+    return result;
+  }
+
+  @NonNull
+  static String[] toStringArray(@NonNull ReadableArray array) {
+    String[] result = new String[array.size()];
+    for (int i = 0; i < array.size(); i++) {
+      result[i] = array.getString(i);
+    }
+    return result;
+  }
+
   @NonNull
   static String credentialDateToString(@NonNull Date date) {
     // TODO a nicer string format. Should this be ISO8601 so JS can reformat?
@@ -516,7 +2329,7 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
 
   @NonNull
   static WritableMap serializeCredential(@NonNull MobileCredential credential) {
-    WritableMap result = new WritableNativeMap();
+    WritableMap result = Writables.createMap();
     result.putString("id", credential.getId());
     result.putInt("facilityId", credential.getFacilityId());
     result.putString("facilityName", credential.getFacilityName());
@@ -526,15 +2339,15 @@ public class GallagherMobileAccessModule extends ReactContextBaseJavaModule impl
   }
 }
 
-abstract class AnonymousRegistrationListener implements RegistrationListener {
+abstract class AnonymousRegistrationListener implements RegistrationListener, PendingRegistrations.Registration {
   @NonNull
-  private Promise mPromise; // mutable
+  private volatile Promise mPromise; // mutable
 
   @NonNull
   private final String mContinuationPoint;
 
   @Nullable
-  private SecondFactorAuthenticationTypeSelector mTwoFactorSelector;
+  private volatile SecondFactorAuthenticationTypeSelector mTwoFactorSelector; // set on the SDK thread, expired on the dispatcher
 
   public AnonymousRegistrationListener(@NonNull Promise promise) {
     this.mPromise = promise;
@@ -543,11 +2356,27 @@ abstract class AnonymousRegistrationListener implements RegistrationListener {
 
   public abstract void cleanup(@NonNull String continuationPoint);
 
+  // the SDK wants a second factor; called before JS hears about the continuation point
+  public abstract void awaitContinuation(@NonNull String continuationPoint);
+
   @NonNull
   public String getmContinuationPoint() {
     return mContinuationPoint;
   }
 
+  // the registration was abandoned and evicted from PendingRegistrations. The promise which gave JS the
+  // continuation point has already resolved, so there is nothing to reject here (registerCredentialContinue
+  // rejects instead). The SDK is still waiting on the selector though: answer it as a user backing out of the
+  // second factor prompt would, so it finishes the registration rather than holding onto it forever
+  @Override
+  public void expire() {
+    SecondFactorAuthenticationTypeSelector selector = mTwoFactorSelector;
+    mTwoFactorSelector = null;
+    if (selector != null) {
+      selector.select(false, SecondFactorAuthenticationType.PIN);
+    }
+  }
+
   void continueRegistration(boolean secondFactorSelected, SecondFactorAuthenticationType authenticationType, @NonNull Promise promise) {
     // swap in the new promise for the second half of the registration process
     this.mPromise = promise;
@@ -577,6 +2406,7 @@ abstract class AnonymousRegistrationListener implements RegistrationListener {
   @Override
   public void onAuthenticationTypeSelectionRequested(SecondFactorAuthenticationTypeSelector selector) {
     mTwoFactorSelector = selector;
+    awaitContinuation(getmContinuationPoint());
     WritableMap response = new WritableNativeMap();
     response.putBoolean("completed", false);
     response.putString("continuationPoint", getmContinuationPoint());
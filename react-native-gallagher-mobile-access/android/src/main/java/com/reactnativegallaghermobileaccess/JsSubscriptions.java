@@ -0,0 +1,97 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Tracks which of our events JS is currently subscribed to, so that we don't serialize events nobody will
+// receive, and only keep each SDK listener hooked while something wants its events.
+//
+// The event emitter exported from index.js names the event on both subscribe and unsubscribe
+// (subscribeEvent / unsubscribeEvent), so its counts are exact. That is the only way to get any tracking on
+// React Native 0.64, whose NativeEventEmitter doesn't call addListener or removeListeners on Android at all.
+//
+// An app constructing its own NativeEventEmitter on 0.65 or later still reaches us through addListener and
+// removeListeners, but removeListeners only says how many subscriptions went away, not for which event, so
+// those per-event counts are only cleared once the total drops to zero: this errs on the side of emitting
+// an event nobody is listening to, never the other way around. Once the exported emitter subscribes, the
+// inexact counts are dropped and addListener and removeListeners ignored, as it accounts for everything.
+//
+// Until we hear either way we assume every event is subscribed.
+class JsSubscriptions {
+  @NonNull
+  private final Map<String, Integer> mCounts = new HashMap<>();
+
+  private int mTotal = 0;
+
+  private boolean mTracking = false;
+
+  // counting exact subscribe / unsubscribe calls rather than addListener / removeListeners
+  private boolean mExact = false;
+
+  // NativeEventEmitter.addListener, React Native 0.65 and later
+  synchronized void add(@NonNull String eventName) {
+    if (mExact) {
+      return;
+    }
+    mTracking = true;
+    increment(eventName);
+  }
+
+  // NativeEventEmitter.removeListeners, React Native 0.65 and later
+  synchronized void remove(int count) {
+    if (mExact) {
+      return;
+    }
+    mTotal = Math.max(0, mTotal - count);
+    if (mTotal == 0) {
+      mCounts.clear();
+    }
+  }
+
+  synchronized void subscribe(@NonNull String eventName) {
+    if (!mExact) {
+      mExact = true;
+      mCounts.clear();
+      mTotal = 0;
+    }
+    mTracking = true;
+    increment(eventName);
+  }
+
+  synchronized void unsubscribe(@NonNull String eventName) {
+    if (!mExact) {
+      return; // not one of ours
+    }
+    Integer count = mCounts.get(eventName);
+    if (count == null) {
+      return;
+    }
+    if (count == 1) {
+      mCounts.remove(eventName);
+    } else {
+      mCounts.put(eventName, count - 1);
+    }
+    mTotal--;
+  }
+
+  // JS is gone (the React instance was destroyed); nothing is subscribed until it subscribes again, in
+  // whichever way the next instance does
+  synchronized void clear() {
+    mTracking = true;
+    mExact = false;
+    mCounts.clear();
+    mTotal = 0;
+  }
+
+  synchronized boolean has(@NonNull String eventName) {
+    return !mTracking || mCounts.containsKey(eventName);
+  }
+
+  private void increment(@NonNull String eventName) {
+    Integer count = mCounts.get(eventName);
+    mCounts.put(eventName, count == null ? 1 : count + 1);
+    mTotal++;
+  }
+}
@@ -0,0 +1,141 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+
+import com.gallagher.security.mobileaccess.AccessListener;
+import com.gallagher.security.mobileaccess.AutomaticAccessListener;
+import com.gallagher.security.mobileaccess.BluetoothScanMode;
+import com.gallagher.security.mobileaccess.CredentialDeleteListener;
+import com.gallagher.security.mobileaccess.DeleteOption;
+import com.gallagher.security.mobileaccess.MobileAccess;
+import com.gallagher.security.mobileaccess.MobileAccessState;
+import com.gallagher.security.mobileaccess.MobileCredential;
+import com.gallagher.security.mobileaccess.Reader;
+import com.gallagher.security.mobileaccess.ReaderUpdateListener;
+import com.gallagher.security.mobileaccess.RegistrationListener;
+import com.gallagher.security.mobileaccess.SdkStateListener;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collection;
+
+// The part of the MobileAccess surface the module uses. The module only ever talks to the SDK through
+// this, so it can be pointed at SimulatedMobileAccessBackend (virtual readers, no hardware or network)
+// for load testing. SdkMobileAccessBackend passes each call straight through to the real SDK.
+interface MobileAccessBackend {
+  void addSdkStateListener(@NonNull SdkStateListener listener);
+  void removeSdkStateListener(@NonNull SdkStateListener listener);
+
+  void addReaderUpdateListener(@NonNull ReaderUpdateListener listener);
+  void removeReaderUpdateListener(@NonNull ReaderUpdateListener listener);
+
+  void addAutomaticAccessListener(@NonNull AutomaticAccessListener listener);
+  void removeAutomaticAccessListener(@NonNull AutomaticAccessListener listener);
+
+  void setAutomaticAccessEnabled(boolean enabled);
+  void setScanning(boolean enabled);
+  void setBluetoothBackgroundScanMode(@NonNull BluetoothScanMode mode);
+
+  // manual connect
+  void requestAccess(@NonNull Reader reader, @NonNull AccessListener listener);
+
+  @NonNull
+  Collection<MobileAccessState> getMobileAccessStates();
+
+  @NonNull
+  URI resolveInvitationUri(@NonNull String host, @NonNull String invitationCode) throws URISyntaxException;
+
+  void registerCredential(@NonNull URI uri, @NonNull RegistrationListener listener);
+
+  @NonNull
+  Collection<MobileCredential> getMobileCredentials();
+
+  void deleteMobileCredential(@NonNull MobileCredential credential, @NonNull DeleteOption option, @NonNull CredentialDeleteListener listener);
+}
+
+class SdkMobileAccessBackend implements MobileAccessBackend {
+  @NonNull
+  private final MobileAccess mSdk;
+
+  SdkMobileAccessBackend(@NonNull MobileAccess sdk) {
+    mSdk = sdk;
+  }
+
+  @Override
+  public void addSdkStateListener(@NonNull SdkStateListener listener) {
+    mSdk.addSdkStateListener(listener);
+  }
+
+  @Override
+  public void removeSdkStateListener(@NonNull SdkStateListener listener) {
+    mSdk.removeSdkStateListener(listener);
+  }
+
+  @Override
+  public void addReaderUpdateListener(@NonNull ReaderUpdateListener listener) {
+    mSdk.addReaderUpdateListener(listener);
+  }
+
+  @Override
+  public void removeReaderUpdateListener(@NonNull ReaderUpdateListener listener) {
+    mSdk.removeReaderUpdateListener(listener);
+  }
+
+  @Override
+  public void addAutomaticAccessListener(@NonNull AutomaticAccessListener listener) {
+    mSdk.addAutomaticAccessListener(listener);
+  }
+
+  @Override
+  public void removeAutomaticAccessListener(@NonNull AutomaticAccessListener listener) {
+    mSdk.removeAutomaticAccessListener(listener);
+  }
+
+  @Override
+  public void setAutomaticAccessEnabled(boolean enabled) {
+    mSdk.setAutomaticAccessEnabled(enabled);
+  }
+
+  @Override
+  public void setScanning(boolean enabled) {
+    mSdk.setScanning(enabled);
+  }
+
+  @Override
+  public void setBluetoothBackgroundScanMode(@NonNull BluetoothScanMode mode) {
+    mSdk.setBluetoothBackgroundScanMode(mode);
+  }
+
+  @Override
+  public void requestAccess(@NonNull Reader reader, @NonNull AccessListener listener) {
+    mSdk.requestAccess(reader, listener);
+  }
+
+  @NonNull
+  @Override
+  public Collection<MobileAccessState> getMobileAccessStates() {
+    return mSdk.getMobileAccessStates();
+  }
+
+  @NonNull
+  @Override
+  public URI resolveInvitationUri(@NonNull String host, @NonNull String invitationCode) throws URISyntaxException {
+    return mSdk.resolveInvitationUri(host, invitationCode);
+  }
+
+  @Override
+  public void registerCredential(@NonNull URI uri, @NonNull RegistrationListener listener) {
+    mSdk.registerCredential(uri, listener);
+  }
+
+  @NonNull
+  @Override
+  public Collection<MobileCredential> getMobileCredentials() {
+    return mSdk.getMobileCredentials();
+  }
+
+  @Override
+  public void deleteMobileCredential(@NonNull MobileCredential credential, @NonNull DeleteOption option, @NonNull CredentialDeleteListener listener) {
+    mSdk.deleteMobileCredential(credential, option, listener);
+  }
+}
@@ -0,0 +1,300 @@
+package com.reactnativegallaghermobileaccess;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.gallagher.security.mobileaccess.AccessResult;
+import com.gallagher.security.mobileaccess.MobileAccessState;
+import com.gallagher.security.mobileaccess.Reader;
+import com.gallagher.security.mobileaccess.ReaderAttributes;
+import com.gallagher.security.mobileaccess.ReaderConnectionError;
+import com.gallagher.security.mobileaccess.ReaderUpdateType;
+
+import java.util.Collection;
+
+// The SDK events the module receives, for native code in the app (services, widgets, tiles) as well as JS.
+// The module publishes each event once, after its own bookkeeping; JS emission is just one subscriber, so
+// native subscribers neither go through the bridge nor pay for JS serialization.
+//
+// What subscribers see matches what JS sees: SDK state changes without the repeats, and reader updates
+// after the reader update filter. Each subscriber says which kinds of event it wants (SDK_STATE, READERS,
+// ACCESS), and only gets those. The module keeps each SDK listener hooked while anything wants its events,
+// even if JS isn't listening, and no longer: reader updates in particular are high volume, so a subscriber
+// which only wants access events shouldn't keep them coming.
+//
+// Subscribers are called synchronously on the SDK's callback thread, so should hand anything slow off to
+// a thread of their own. Publishing takes no locks: the subscriber list is copied on write.
+public final class MobileAccessEventBus {
+  public static final int SDK_STATE = 1;
+  public static final int READERS = 1 << 1;
+  public static final int ACCESS = 1 << 2; // started, completed, return to reader
+  public static final int ALL = SDK_STATE | READERS | ACCESS;
+
+  public interface Subscriber {
+    void onSdkStateChanged(boolean isScanning, @NonNull Collection<MobileAccessState> states);
+    void onReaderUpdated(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateType updateType);
+    void onAccessStarted(@NonNull Reader reader);
+    void onAccessCompleted(@NonNull Reader reader, @Nullable AccessResult result, @Nullable ReaderConnectionError error);
+    void onReturnToReaderRequired(@NonNull Reader reader);
+    void onReturnedToReader(@NonNull Reader reader);
+  }
+
+  // For the module's own subscribers, which only want the state names: the module's SdkStateMemo already
+  // holds them, so these get its array rather than each building their own. The array is shared; don't modify it
+  interface StateNamesSubscriber {
+    void onSdkStateNamesChanged(boolean isScanning, @NonNull String[] stateNames);
+  }
+
+  // override only the events you want
+  public static abstract class SimpleSubscriber implements Subscriber {
+    @Override
+    public void onSdkStateChanged(boolean isScanning, @NonNull Collection<MobileAccessState> states) {
+    }
+
+    @Override
+    public void onReaderUpdated(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateType updateType) {
+    }
+
+    @Override
+    public void onAccessStarted(@NonNull Reader reader) {
+    }
+
+    @Override
+    public void onAccessCompleted(@NonNull Reader reader, @Nullable AccessResult result, @Nullable ReaderConnectionError error) {
+    }
+
+    @Override
+    public void onReturnToReaderRequired(@NonNull Reader reader) {
+    }
+
+    @Override
+    public void onReturnedToReader(@NonNull Reader reader) {
+    }
+  }
+
+  private static final MobileAccessEventBus INSTANCE = new MobileAccessEventBus();
+
+  @NonNull
+  public static MobileAccessEventBus getInstance() {
+    return INSTANCE;
+  }
+
+  private static final class Entry {
+    @NonNull
+    final Subscriber subscriber;
+    final int interests;
+    final boolean external;
+
+    Entry(@NonNull Subscriber subscriber, int interests, boolean external) {
+      this.subscriber = subscriber;
+      this.interests = interests;
+      this.external = external;
+    }
+  }
+
+  private static final Entry[] NONE = new Entry[0];
+
+  // replaced whole on every change, never mutated, so publishing can iterate it without a lock
+  @NonNull
+  private volatile Entry[] mSubscribers = NONE;
+
+  // per kind of event, the subscribers from outside the module which want it, i.e. not counting the JS
+  // emitter and other internal subscribers, which the module accounts for itself. guarded by this
+  private int mExternalSdkState = 0;
+  private int mExternalReaders = 0;
+  private int mExternalAccess = 0;
+
+  @Nullable
+  private volatile Runnable mOnExternalSubscribersChanged;
+
+  private MobileAccessEventBus() {
+  }
+
+  // every kind of event
+  public void subscribe(@NonNull Subscriber subscriber) {
+    subscribe(subscriber, ALL);
+  }
+
+  // interests: SDK_STATE, READERS and/or ACCESS
+  public void subscribe(@NonNull Subscriber subscriber, int interests) {
+    synchronized (this) {
+      add(new Entry(subscriber, interests, true));
+      countExternalLocked(interests, 1);
+    }
+    notifyExternalSubscribersChanged();
+  }
+
+  public void unsubscribe(@NonNull Subscriber subscriber) {
+    synchronized (this) {
+      Entry entry = remove(subscriber);
+      if (entry == null) {
+        return;
+      }
+      if (entry.external) {
+        countExternalLocked(entry.interests, -1);
+      }
+    }
+    notifyExternalSubscribersChanged();
+  }
+
+  // ----- for the module --------------------------------------------------------------------------
+
+  synchronized void subscribeInternal(@NonNull Subscriber subscriber, int interests) {
+    add(new Entry(subscriber, interests, false));
+  }
+
+  synchronized void unsubscribeInternal(@NonNull Subscriber subscriber) {
+    remove(subscriber);
+  }
+
+  // whether any subscriber from outside the module wants this kind of event (SDK_STATE, READERS or ACCESS)
+  synchronized boolean hasExternalSubscribers(int interest) {
+    switch (interest) {
+      case SDK_STATE:
+        return mExternalSdkState > 0;
+      case READERS:
+        return mExternalReaders > 0;
+      case ACCESS:
+        return mExternalAccess > 0;
+      default:
+        throw new IllegalArgumentException("one kind of event at a time");
+    }
+  }
+
+  synchronized void setOnExternalSubscribersChanged(@NonNull Runnable callback) {
+    mOnExternalSubscribersChanged = callback;
+  }
+
+  synchronized void clearOnExternalSubscribersChanged(@NonNull Runnable callback) {
+    if (mOnExternalSubscribersChanged == callback) {
+      mOnExternalSubscribersChanged = null;
+    }
+  }
+
+  // stateNames: states serialized, as memoized by the publisher
+  void publishSdkStateChanged(boolean isScanning, @NonNull Collection<MobileAccessState> states, @NonNull String[] stateNames) {
+    for (Entry entry : mSubscribers) {
+      if ((entry.interests & SDK_STATE) == 0) {
+        continue;
+      }
+      try {
+        if (entry.subscriber instanceof StateNamesSubscriber) {
+          ((StateNamesSubscriber) entry.subscriber).onSdkStateNamesChanged(isScanning, stateNames);
+        } else {
+          entry.subscriber.onSdkStateChanged(isScanning, states);
+        }
+      } catch (RuntimeException e) {
+        Log.e("GallagherMobileAccess", "event bus subscriber failed", e);
+      }
+    }
+  }
+
+  void publishReaderUpdated(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateType updateType) {
+    for (Entry entry : mSubscribers) {
+      if ((entry.interests & READERS) == 0) {
+        continue;
+      }
+      try {
+        entry.subscriber.onReaderUpdated(reader, updateType);
+      } catch (RuntimeException e) {
+        Log.e("GallagherMobileAccess", "event bus subscriber failed", e);
+      }
+    }
+  }
+
+  void publishAccessStarted(@NonNull Reader reader) {
+    for (Entry entry : mSubscribers) {
+      if ((entry.interests & ACCESS) == 0) {
+        continue;
+      }
+      try {
+        entry.subscriber.onAccessStarted(reader);
+      } catch (RuntimeException e) {
+        Log.e("GallagherMobileAccess", "event bus subscriber failed", e);
+      }
+    }
+  }
+
+  void publishAccessCompleted(@NonNull Reader reader, @Nullable AccessResult result, @Nullable ReaderConnectionError error) {
+    for (Entry entry : mSubscribers) {
+      if ((entry.interests & ACCESS) == 0) {
+        continue;
+      }
+      try {
+        entry.subscriber.onAccessCompleted(reader, result, error);
+      } catch (RuntimeException e) {
+        Log.e("GallagherMobileAccess", "event bus subscriber failed", e);
+      }
+    }
+  }
+
+  void publishReturnToReaderRequired(@NonNull Reader reader) {
+    for (Entry entry : mSubscribers) {
+      if ((entry.interests & ACCESS) == 0) {
+        continue;
+      }
+      try {
+        entry.subscriber.onReturnToReaderRequired(reader);
+      } catch (RuntimeException e) {
+        Log.e("GallagherMobileAccess", "event bus subscriber failed", e);
+      }
+    }
+  }
+
+  void publishReturnedToReader(@NonNull Reader reader) {
+    for (Entry entry : mSubscribers) {
+      if ((entry.interests & ACCESS) == 0) {
+        continue;
+      }
+      try {
+        entry.subscriber.onReturnedToReader(reader);
+      } catch (RuntimeException e) {
+        Log.e("GallagherMobileAccess", "event bus subscriber failed", e);
+      }
+    }
+  }
+
+  // callers hold the lock
+  private void add(@NonNull Entry entry) {
+    Entry[] subscribers = new Entry[mSubscribers.length + 1];
+    System.arraycopy(mSubscribers, 0, subscribers, 0, mSubscribers.length);
+    subscribers[mSubscribers.length] = entry;
+    mSubscribers = subscribers;
+  }
+
+  @Nullable
+  private Entry remove(@NonNull Subscriber subscriber) {
+    Entry[] current = mSubscribers;
+    for (int i = 0; i < current.length; i++) {
+      if (current[i].subscriber == subscriber) {
+        Entry[] subscribers = new Entry[current.length - 1];
+        System.arraycopy(current, 0, subscribers, 0, i);
+        System.arraycopy(current, i + 1, subscribers, i, current.length - i - 1);
+        mSubscribers = subscribers;
+        return current[i];
+      }
+    }
+    return null;
+  }
+
+  private void countExternalLocked(int interests, int delta) {
+    if ((interests & SDK_STATE) != 0) {
+      mExternalSdkState += delta;
+    }
+    if ((interests & READERS) != 0) {
+      mExternalReaders += delta;
+    }
+    if ((interests & ACCESS) != 0) {
+      mExternalAccess += delta;
+    }
+  }
+
+  private void notifyExternalSubscribersChanged() {
+    Runnable callback = mOnExternalSubscribersChanged;
+    if (callback != null) {
+      callback.run();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// What the module costs at runtime: how many of each event we emit, how long each took to serialize,
+// and how long access events took from SDK callback to emit. Recorded on the dispatcher thread for
+// every event, so it is all plain atomics with no locks (LongAdder would be cheaper under contention,
+// but needs API 24). Everything here can be reset, so a diagnostics screen can sample an interval.
+class ModuleMetrics {
+  // index into the per-event arrays; -1 for events we don't track
+  static final int EVENT_SDK_STATE_CHANGED = 0;
+  static final int EVENT_READER_UPDATED = 1;
+  static final int EVENT_READERS_UPDATED = 2;
+  static final int EVENT_ACCESS = 3;
+  private static final int EVENT_COUNT = 4;
+
+  private static final String[] EVENT_NAMES = {
+    GallagherMobileAccessModule.EVENT_SDK_STATE_CHANGED,
+    GallagherMobileAccessModule.EVENT_READER_UPDATED,
+    GallagherMobileAccessModule.EVENT_READERS_UPDATED,
+    GallagherMobileAccessModule.EVENT_ACCESS,
+  };
+
+  // Counts of durations in power of two buckets of microseconds: bucket 0 is under 1us, bucket i is
+  // [2^(i-1), 2^i) us, and the last bucket takes everything from about a quarter of a second up
+  static final class Histogram {
+    static final int BUCKETS = 20;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mTotalNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    void record(long nanos) {
+      long micros = nanos / 1000;
+      int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+      mBuckets.incrementAndGet(bucket);
+      mCount.incrementAndGet();
+      mTotalNanos.addAndGet(nanos);
+      long max = mMaxNanos.get();
+      while (nanos > max && !mMaxNanos.compareAndSet(max, nanos)) {
+        max = mMaxNanos.get();
+      }
+    }
+
+    void reset() {
+      for (int i = 0; i < BUCKETS; i++) {
+        mBuckets.set(i, 0);
+      }
+      mCount.set(0);
+      mTotalNanos.set(0);
+      mMaxNanos.set(0);
+    }
+
+    // { count, meanMs, maxMs, buckets: [count per bucket] }
+    @NonNull
+    WritableMap serialize() {
+      WritableMap result = new WritableNativeMap();
+      long count = mCount.get();
+      result.putDouble("count", count);
+      result.putDouble("meanMs", count == 0 ? 0 : mTotalNanos.get() / 1e6 / count);
+      result.putDouble("maxMs", mMaxNanos.get() / 1e6);
+      WritableArray buckets = new WritableNativeArray();
+      for (int i = 0; i < BUCKETS; i++) {
+        buckets.pushDouble(mBuckets.get(i));
+      }
+      result.putArray("buckets", buckets);
+      return result;
+    }
+  }
+
+  private final AtomicLongArray mEmitted = new AtomicLongArray(EVENT_COUNT);
+
+  @NonNull
+  private final Histogram[] mSerialization = new Histogram[EVENT_COUNT];
+
+  @NonNull
+  private final Histogram mAccessLatency = new Histogram();
+
+  private volatile long mWindowStartMillis = System.currentTimeMillis();
+
+  ModuleMetrics() {
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      mSerialization[i] = new Histogram();
+    }
+  }
+
+  static int eventIndex(@NonNull String eventName) {
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      if (EVENT_NAMES[i].equals(eventName)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  void recordEmit(int event) {
+    if (event >= 0) {
+      mEmitted.incrementAndGet(event);
+    }
+  }
+
+  void recordSerialization(int event, long nanos) {
+    mSerialization[event].record(nanos);
+  }
+
+  // SDK callback -> RCTDeviceEventEmitter.emit, for access events
+  void recordAccessLatency(long nanos) {
+    mAccessLatency.record(nanos);
+  }
+
+  void reset() {
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      mEmitted.set(i, 0);
+      mSerialization[i].reset();
+    }
+    mAccessLatency.reset();
+    mWindowStartMillis = System.currentTimeMillis();
+  }
+
+  long getWindowStartMillis() {
+    return mWindowStartMillis;
+  }
+
+  // { windowMs, events: { <name>: { emitted, perSecond, serialization } }, accessLatency }
+  // the module adds the figures which live elsewhere (queue depth, drops, registrations)
+  @NonNull
+  WritableMap serialize() {
+    long windowMs = Math.max(1, System.currentTimeMillis() - mWindowStartMillis);
+    WritableMap result = new WritableNativeMap();
+    result.putDouble("windowMs", windowMs);
+    WritableMap events = new WritableNativeMap();
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      long emitted = mEmitted.get(i);
+      WritableMap event = new WritableNativeMap();
+      event.putDouble("emitted", emitted);
+      event.putDouble("perSecond", emitted * 1000.0 / windowMs);
+      event.putMap("serialization", mSerialization[i].serialize());
+      events.putMap(EVENT_NAMES[i], event);
+    }
+    result.putMap("events", events);
+    result.putMap("accessLatency", mAccessLatency.serialize());
+    return result;
+  }
+}
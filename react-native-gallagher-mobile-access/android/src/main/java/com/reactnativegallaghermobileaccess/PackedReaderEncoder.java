@@ -0,0 +1,171 @@
+package com.reactnativegallaghermobileaccess;
+
+import android.util.Base64;
+
+import androidx.annotation.NonNull;
+
+import com.gallagher.security.mobileaccess.ReaderAttributes;
+import com.gallagher.security.mobileaccess.ReaderDistance;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Packs a set of readers into one base64 string of fixed-width records, instead of an array of maps.
+// A map per reader costs a WritableNativeMap on the way out, and a JS object with ten string keys on the
+// way in; for a lobby full of readers the keys are most of the payload.
+// decodePackedReaders in index.js is the other half of this; keep the two in step.
+//
+// Layout, little endian:
+//   header   u8 'G', u8 'R', u8 version (1), u8 reserved, u16 recordCount, u16 stringCount
+//   records  recordCount x 20 bytes:
+//              u16 id (string index), u16 name (string index),
+//              f32 measuredPathLoss, f32 autoConnectPathLoss, f32 manualConnectPathLoss,
+//              u8 distance (DISTANCE_), u8 flags (FLAG_), u8 updateType (UPDATE_TYPE_), u8 reserved
+//   strings  stringCount x (u16 byte length, UTF-8 bytes)
+class PackedReaderEncoder {
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 8;
+  static final int RECORD_SIZE = 20;
+
+  static final int DISTANCE_FAR = 0;
+  static final int DISTANCE_MEDIUM = 1;
+  static final int DISTANCE_NEAR = 2;
+  static final int DISTANCE_UNKNOWN = 255;
+
+  static final int FLAG_BLE_MANUAL_CONNECT_ENABLED = 1;
+  static final int FLAG_BLE_AUTO_CONNECT_ENABLED = 1 << 1;
+  static final int FLAG_SECOND_FACTOR_REQUIRED = 1 << 2;
+  static final int FLAG_BLE_ACTIONS_ENABLED = 1 << 3;
+  static final int FLAG_STALE = 1 << 4; // from ReaderMetadataCache; measuredPathLoss is NaN and distance unknown
+
+  static final int UPDATE_TYPE_ATTRIBUTES_CHANGED = 0;
+  static final int UPDATE_TYPE_READER_UNAVAILABLE = 1;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static final class Record {
+    int id;
+    int name;
+    float measuredPathLoss;
+    float autoConnectPathLoss;
+    float manualConnectPathLoss;
+    int distance;
+    int flags;
+    int updateType;
+  }
+
+  @NonNull
+  private final List<Record> mRecords = new ArrayList<>();
+
+  @NonNull
+  private final List<byte[]> mStrings = new ArrayList<>();
+
+  @NonNull
+  private final Map<String, Integer> mStringIndexes = new HashMap<>();
+
+  private int mStringBytes = 0;
+
+  void add(@NonNull ReaderStateTable.Snapshot reader, int updateType) {
+    int flags = 0;
+    if (reader.isBleManualConnectEnabled) flags |= FLAG_BLE_MANUAL_CONNECT_ENABLED;
+    if (reader.isBleAutoConnectEnabled) flags |= FLAG_BLE_AUTO_CONNECT_ENABLED;
+    if (reader.isSecondFactorRequired) flags |= FLAG_SECOND_FACTOR_REQUIRED;
+    if (reader.isBleActionsEnabled) flags |= FLAG_BLE_ACTIONS_ENABLED;
+    add(reader.id, reader.name, reader.measuredPathLoss, reader.autoConnectPathLoss, reader.manualConnectPathLoss,
+      encodeDistance(reader.distance), flags, updateType);
+  }
+
+  void addStale(@NonNull ReaderMetadataCache.Entry reader) {
+    add(reader.id, reader.name, Double.NaN, reader.autoConnectPathLoss, reader.manualConnectPathLoss,
+      DISTANCE_UNKNOWN, reader.flags | FLAG_STALE, UPDATE_TYPE_ATTRIBUTES_CHANGED);
+  }
+
+  void add(@NonNull ReaderAttributes reader, int updateType) {
+    int flags = 0;
+    if (reader.isBleManualConnectEnabled()) flags |= FLAG_BLE_MANUAL_CONNECT_ENABLED;
+    if (reader.isBleAutoConnectEnabled()) flags |= FLAG_BLE_AUTO_CONNECT_ENABLED;
+    if (reader.isSecondFactorRequired()) flags |= FLAG_SECOND_FACTOR_REQUIRED;
+    if (reader.isBleActionsEnabled()) flags |= FLAG_BLE_ACTIONS_ENABLED;
+    add(reader.getId(), reader.getName(), reader.getMeasuredPathLoss(), reader.getAutoConnectPathLoss(),
+      reader.getManualConnectPathLoss(), encodeDistance(reader.getReaderDistance()), flags, updateType);
+  }
+
+  private void add(@NonNull String id, @NonNull String name, double measuredPathLoss, double autoConnectPathLoss,
+                   double manualConnectPathLoss, int distance, int flags, int updateType) {
+    Record record = new Record();
+    record.id = intern(id);
+    record.name = intern(name);
+    record.measuredPathLoss = (float) measuredPathLoss;
+    record.autoConnectPathLoss = (float) autoConnectPathLoss;
+    record.manualConnectPathLoss = (float) manualConnectPathLoss;
+    record.distance = distance;
+    record.flags = flags;
+    record.updateType = updateType;
+    mRecords.add(record);
+  }
+
+  boolean isEmpty() {
+    return mRecords.isEmpty();
+  }
+
+  @NonNull
+  String encodeToBase64() {
+    return Base64.encodeToString(encode(), Base64.NO_WRAP);
+  }
+
+  @NonNull
+  byte[] encode() {
+    int size = HEADER_SIZE + mRecords.size() * RECORD_SIZE + mStrings.size() * 2 + mStringBytes;
+    ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put((byte) 'G');
+    buffer.put((byte) 'R');
+    buffer.put((byte) VERSION);
+    buffer.put((byte) 0);
+    buffer.putShort((short) mRecords.size());
+    buffer.putShort((short) mStrings.size());
+    for (Record record : mRecords) {
+      buffer.putShort((short) record.id);
+      buffer.putShort((short) record.name);
+      buffer.putFloat(record.measuredPathLoss);
+      buffer.putFloat(record.autoConnectPathLoss);
+      buffer.putFloat(record.manualConnectPathLoss);
+      buffer.put((byte) record.distance);
+      buffer.put((byte) record.flags);
+      buffer.put((byte) record.updateType);
+      buffer.put((byte) 0);
+    }
+    for (byte[] string : mStrings) {
+      buffer.putShort((short) string.length);
+      buffer.put(string);
+    }
+    return buffer.array();
+  }
+
+  // reader ids repeat in every batch and names are often shared, so each distinct string is sent once
+  private int intern(@NonNull String value) {
+    Integer existing = mStringIndexes.get(value);
+    if (existing != null) {
+      return existing;
+    }
+    byte[] bytes = value.getBytes(UTF8);
+    int index = mStrings.size();
+    mStrings.add(bytes);
+    mStringBytes += bytes.length;
+    mStringIndexes.put(value, index);
+    return index;
+  }
+
+  private static int encodeDistance(@NonNull ReaderDistance distance) {
+    switch (distance) {
+      case FAR: return DISTANCE_FAR;
+      case MEDIUM: return DISTANCE_MEDIUM;
+      case NEAR: return DISTANCE_NEAR;
+      default: return DISTANCE_UNKNOWN;
+    }
+  }
+}
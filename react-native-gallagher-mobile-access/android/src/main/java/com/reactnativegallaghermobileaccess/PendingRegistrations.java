@@ -0,0 +1,205 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Registrations in progress, by continuation point, so registerCredentialContinue can find the one JS
+// means. Touched from React method threads and from SDK registration callbacks, hence synchronized.
+//
+// A registration is either in flight (the SDK is working on it and will call back either way) or waiting
+// for a continuation (the SDK asked for a second factor, see awaitContinuation). If the user walks away from
+// the second factor prompt, JS never calls registerCredentialContinue and the SDK never calls back, so
+// nothing would ever remove a waiting entry. Waiting entries therefore expire after a TTL, and the oldest
+// waiting entries are evicted once there are more than maxPending waiting; either way the registration is
+// expired (its SDK registration ended) rather than left hanging. In-flight entries are never expired or
+// evicted, as the SDK call still owns them; they don't count towards maxPending.
+//
+// JS already has its continuation point by the time an entry expires, and the promise which gave it out has
+// already resolved, so the expired continuation points are remembered (the last MAX_EXPIRED of them) for
+// registerCredentialContinue to reject with "registration_expired" rather than "invalid_continuation_point".
+//
+// Times are SystemClock.elapsedRealtime, passed in by the caller so tests can drive expiry.
+class PendingRegistrations<T extends PendingRegistrations.Registration> {
+  static final long DEFAULT_TTL_MS = 5 * 60 * 1000;
+  static final int DEFAULT_MAX_PENDING = 64;
+  static final int MAX_EXPIRED = 256;
+
+  interface Registration {
+    // called outside any lock, at most once, and only for a registration waiting for a continuation
+    void expire();
+  }
+
+  private static final class Entry<T> {
+    @NonNull
+    final T registration;
+    final boolean waiting;
+    final long expiresAt; // only for waiting entries
+
+    Entry(@NonNull T registration, boolean waiting, long expiresAt) {
+      this.registration = registration;
+      this.waiting = waiting;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  // insertion ordered. Entries are re-inserted when they start waiting, so the waiting entries are in the
+  // order they started waiting, i.e. oldest (and first to expire) first
+  @NonNull
+  private final LinkedHashMap<String, Entry<T>> mEntries = new LinkedHashMap<>();
+
+  // guarded by this
+  private int mWaiting = 0;
+
+  // continuation points expired and not yet asked about, oldest first. guarded by this
+  @NonNull
+  private final LinkedHashSet<String> mExpired = new LinkedHashSet<>();
+
+  private volatile long mTtlMs = DEFAULT_TTL_MS;
+  private volatile int mMaxPending = DEFAULT_MAX_PENDING;
+
+  void setTtl(long ttlMs) {
+    if (ttlMs <= 0) {
+      throw new IllegalArgumentException("ttlMs must be positive");
+    }
+    mTtlMs = ttlMs;
+  }
+
+  long getTtl() {
+    return mTtlMs;
+  }
+
+  void setMaxPending(int maxPending) {
+    if (maxPending <= 0) {
+      throw new IllegalArgumentException("maxPending must be positive");
+    }
+    mMaxPending = maxPending;
+  }
+
+  // a registration the SDK has just been asked to start
+  synchronized void put(@NonNull String continuationPoint, @NonNull T registration) {
+    Entry<T> previous = mEntries.put(continuationPoint, new Entry<>(registration, false, 0));
+    if (previous != null && previous.waiting) {
+      mWaiting--;
+    }
+  }
+
+  // the SDK has asked for a second factor: from now until registerCredentialContinue takes it, the
+  // registration is waiting on JS, and may expire. Returns false if it is no longer here
+  boolean awaitContinuation(@NonNull String continuationPoint, long now) {
+    List<T> evicted = new ArrayList<>();
+    boolean found;
+    synchronized (this) {
+      Entry<T> entry = mEntries.remove(continuationPoint);
+      found = entry != null;
+      if (found) {
+        if (entry.waiting) {
+          mWaiting--;
+        }
+        removeExpiredLocked(evicted, now);
+        Iterator<Map.Entry<String, Entry<T>>> it = mEntries.entrySet().iterator();
+        while (mWaiting >= mMaxPending && it.hasNext()) {
+          Map.Entry<String, Entry<T>> oldest = it.next();
+          if (oldest.getValue().waiting) {
+            evictLocked(oldest.getKey(), oldest.getValue(), evicted);
+            it.remove();
+          }
+        }
+        mEntries.put(continuationPoint, new Entry<>(entry.registration, true, now + mTtlMs));
+        mWaiting++;
+      }
+    }
+    expire(evicted);
+    return found;
+  }
+
+  // removes and returns the registration, which the caller then owns
+  @Nullable
+  T take(@NonNull String continuationPoint, long now) {
+    Entry<T> entry;
+    List<T> evicted = new ArrayList<>();
+    synchronized (this) {
+      removeExpiredLocked(evicted, now);
+      entry = removeLocked(continuationPoint);
+    }
+    expire(evicted);
+    return entry != null ? entry.registration : null;
+  }
+
+  synchronized void remove(@NonNull String continuationPoint) {
+    removeLocked(continuationPoint);
+  }
+
+  synchronized int size() {
+    return mEntries.size();
+  }
+
+  synchronized int waiting() {
+    return mWaiting;
+  }
+
+  // true if this continuation point's registration expired (take having returned null for it). Each is only
+  // reported once
+  synchronized boolean forgetExpired(@NonNull String continuationPoint) {
+    return mExpired.remove(continuationPoint);
+  }
+
+  // expires and forgets every waiting registration past its TTL
+  void removeExpired(long now) {
+    List<T> evicted = new ArrayList<>();
+    synchronized (this) {
+      removeExpiredLocked(evicted, now);
+    }
+    expire(evicted);
+  }
+
+  @Nullable
+  private Entry<T> removeLocked(@NonNull String continuationPoint) {
+    Entry<T> entry = mEntries.remove(continuationPoint);
+    if (entry != null && entry.waiting) {
+      mWaiting--;
+    }
+    return entry;
+  }
+
+  private void removeExpiredLocked(@NonNull List<T> evicted, long now) {
+    Iterator<Map.Entry<String, Entry<T>>> it = mEntries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, Entry<T>> next = it.next();
+      Entry<T> entry = next.getValue();
+      if (!entry.waiting) {
+        continue;
+      }
+      if (entry.expiresAt > now) {
+        break; // later waiting entries started waiting later, and expire later (unless the TTL was shortened since)
+      }
+      evictLocked(next.getKey(), entry, evicted);
+      it.remove();
+    }
+  }
+
+  // the caller removes the entry from mEntries
+  private void evictLocked(@NonNull String continuationPoint, @NonNull Entry<T> entry, @NonNull List<T> evicted) {
+    evicted.add(entry.registration);
+    mWaiting--;
+    mExpired.add(continuationPoint);
+    if (mExpired.size() > MAX_EXPIRED) {
+      Iterator<String> oldest = mExpired.iterator();
+      oldest.next();
+      oldest.remove();
+    }
+  }
+
+  // outside the lock: rejecting a promise calls into React Native
+  private static <T extends Registration> void expire(@NonNull List<T> evicted) {
+    for (T registration : evicted) {
+      registration.expire();
+    }
+  }
+}
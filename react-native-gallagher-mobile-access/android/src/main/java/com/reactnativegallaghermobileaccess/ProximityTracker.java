@@ -0,0 +1,167 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Works out whether the user is walking towards or away from each reader, from the trend in its
+// measuredPathLoss, so JS gets a handful of "readerApproach" events instead of every raw reading.
+//
+// Each reader keeps a ring buffer of its last SAMPLES readings. A least squares line through those from
+// the last WINDOW_MS gives the rate of change of path loss; falling path loss means getting closer.
+// The trend only changes when the slope crosses ENTER_SLOPE, and only goes back to steady once it falls
+// within EXIT_SLOPE, so noise around the threshold doesn't flap between states. While approaching,
+// the fitted line also estimates how long until the manual and auto connect thresholds are reached.
+//
+// Only reports trend changes; update returns null otherwise. estimateSlope has no Android or SDK
+// dependencies, so it can be run over recorded traces on its own.
+class ProximityTracker {
+  static final int TREND_STEADY = 0;
+  static final int TREND_APPROACHING = 1;
+  static final int TREND_RECEDING = 2;
+
+  static final int SAMPLES = 16;
+  static final int MIN_SAMPLES = 4;
+  static final long WINDOW_MS = 4000;
+  static final long MIN_SPAN_MS = 1500; // a few readings close together are mostly noise
+  static final double ENTER_SLOPE = 1.5; // dB per second
+  static final double EXIT_SLOPE = 0.5;
+
+  static final class Change {
+    @NonNull
+    final String id;
+    final int trend;
+    final double slopeDbPerSecond;
+    final double pathLoss; // fitted, rather than the latest noisy reading
+    // while approaching, estimated seconds until the threshold is reached, or 0 if it already has been.
+    // NaN for any other trend
+    final double secondsToManualConnect;
+    final double secondsToAutoConnect;
+
+    Change(@NonNull String id, int trend, double slopeDbPerSecond, double pathLoss,
+           double secondsToManualConnect, double secondsToAutoConnect) {
+      this.id = id;
+      this.trend = trend;
+      this.slopeDbPerSecond = slopeDbPerSecond;
+      this.pathLoss = pathLoss;
+      this.secondsToManualConnect = secondsToManualConnect;
+      this.secondsToAutoConnect = secondsToAutoConnect;
+    }
+  }
+
+  private static final class Track {
+    final long[] times = new long[SAMPLES];
+    final double[] pathLosses = new double[SAMPLES];
+    int next = 0;
+    int count = 0;
+    int trend = TREND_STEADY;
+  }
+
+  // guarded by this
+  @NonNull
+  private final Map<String, Track> mTracks = new HashMap<>();
+
+  // scratch space for the fit, so that update doesn't allocate. guarded by this
+  private final double[] mFit = new double[2];
+
+  // nowMillis must not go backwards; use SystemClock.elapsedRealtime
+  @Nullable
+  synchronized Change update(@NonNull String id, long nowMillis, double pathLoss, double autoConnectPathLoss, double manualConnectPathLoss) {
+    Track track = mTracks.get(id);
+    if (track == null) {
+      track = new Track();
+      mTracks.put(id, track);
+    }
+    track.times[track.next] = nowMillis;
+    track.pathLosses[track.next] = pathLoss;
+    track.next = (track.next + 1) % SAMPLES;
+    track.count = Math.min(track.count + 1, SAMPLES);
+
+    if (!estimateSlope(track.times, track.pathLosses, track.count, nowMillis - WINDOW_MS, mFit)) {
+      return null;
+    }
+    double slope = mFit[0];
+    double fittedPathLoss = mFit[1];
+
+    int trend = track.trend;
+    if (slope <= -ENTER_SLOPE) {
+      trend = TREND_APPROACHING;
+    } else if (slope >= ENTER_SLOPE) {
+      trend = TREND_RECEDING;
+    } else if (Math.abs(slope) < EXIT_SLOPE) {
+      trend = TREND_STEADY;
+    }
+    if (trend == track.trend) {
+      return null;
+    }
+    track.trend = trend;
+
+    double toManual = Double.NaN;
+    double toAuto = Double.NaN;
+    if (trend == TREND_APPROACHING) {
+      toManual = secondsToReach(fittedPathLoss, manualConnectPathLoss, slope);
+      toAuto = secondsToReach(fittedPathLoss, autoConnectPathLoss, slope);
+    }
+    return new Change(id, trend, slope, fittedPathLoss, toManual, toAuto);
+  }
+
+  synchronized void remove(@NonNull String id) {
+    mTracks.remove(id);
+  }
+
+  synchronized void clear() {
+    mTracks.clear();
+  }
+
+  // Least squares fit over those of the first count samples taken at or after sinceMillis (the buffer
+  // may wrap, so order doesn't matter). On success, result[0] is the slope in dB per second and result[1]
+  // the fitted path loss at the latest sample. Returns false if there are too few samples, or they span too
+  // short a time, to say
+  static boolean estimateSlope(@NonNull long[] times, @NonNull double[] pathLosses, int count, long sinceMillis, @NonNull double[] result) {
+    int n = 0;
+    long earliest = Long.MAX_VALUE;
+    long latest = Long.MIN_VALUE;
+    for (int i = 0; i < count; i++) {
+      if (times[i] >= sinceMillis) {
+        n++;
+        earliest = Math.min(earliest, times[i]);
+        latest = Math.max(latest, times[i]);
+      }
+    }
+    if (n < MIN_SAMPLES || latest - earliest < MIN_SPAN_MS) {
+      return false;
+    }
+    // seconds relative to the latest sample, to keep the sums small
+    double sumT = 0, sumY = 0;
+    for (int i = 0; i < count; i++) {
+      if (times[i] >= sinceMillis) {
+        sumT += (times[i] - latest) / 1000.0;
+        sumY += pathLosses[i];
+      }
+    }
+    double meanT = sumT / n;
+    double meanY = sumY / n;
+    double covariance = 0, variance = 0;
+    for (int i = 0; i < count; i++) {
+      if (times[i] >= sinceMillis) {
+        double dt = (times[i] - latest) / 1000.0 - meanT;
+        covariance += dt * (pathLosses[i] - meanY);
+        variance += dt * dt;
+      }
+    }
+    double slope = covariance / variance;
+    result[0] = slope;
+    result[1] = meanY + slope * (0 - meanT);
+    return true;
+  }
+
+  // 0 if already there; slope must be negative
+  private static double secondsToReach(double pathLoss, double threshold, double slope) {
+    if (pathLoss <= threshold) {
+      return 0;
+    }
+    return (pathLoss - threshold) / -slope;
+  }
+}
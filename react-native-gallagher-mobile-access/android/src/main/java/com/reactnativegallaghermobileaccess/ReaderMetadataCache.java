@@ -0,0 +1,191 @@
+package com.reactnativegallaghermobileaccess;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.gallagher.security.mobileaccess.ReaderAttributes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// The readers we have seen before, persisted so that after a cold start getReaders can show them straight
+// away (marked stale) rather than an empty list until BLE scanning finds each one again. Only the
+// attributes which don't change from moment to moment are kept: name, connect thresholds and BLE flags.
+//
+// The file is read once, on the configure thread. update() is called for every reader update, so it only
+// compares against what is held in memory, and reports whether anything changed; the module then writes
+// the file at most once per debounce interval (see scheduleReaderMetadataWrite).
+//
+// File format, via DataOutputStream: int version, int count, then per reader
+//   UTF id, UTF name, float autoConnectPathLoss, float manualConnectPathLoss, byte flags (PackedReaderEncoder FLAG_)
+class ReaderMetadataCache {
+  static final String FILE_NAME = "gallagher-mobile-access-readers.cache";
+  static final int VERSION = 1;
+  static final int MAX_READERS = 512;
+
+  static final class Entry {
+    @NonNull
+    final String id;
+    @NonNull
+    final String name;
+    final float autoConnectPathLoss;
+    final float manualConnectPathLoss;
+    final int flags;
+
+    Entry(@NonNull String id, @NonNull String name, float autoConnectPathLoss, float manualConnectPathLoss, int flags) {
+      this.id = id;
+      this.name = name;
+      this.autoConnectPathLoss = autoConnectPathLoss;
+      this.manualConnectPathLoss = manualConnectPathLoss;
+      this.flags = flags;
+    }
+
+    boolean isBleManualConnectEnabled() {
+      return (flags & PackedReaderEncoder.FLAG_BLE_MANUAL_CONNECT_ENABLED) != 0;
+    }
+
+    boolean isBleAutoConnectEnabled() {
+      return (flags & PackedReaderEncoder.FLAG_BLE_AUTO_CONNECT_ENABLED) != 0;
+    }
+
+    boolean isSecondFactorRequired() {
+      return (flags & PackedReaderEncoder.FLAG_SECOND_FACTOR_REQUIRED) != 0;
+    }
+
+    boolean isBleActionsEnabled() {
+      return (flags & PackedReaderEncoder.FLAG_BLE_ACTIONS_ENABLED) != 0;
+    }
+  }
+
+  // null until load; until then updates are ignored. guarded by this.
+  // access ordered, so the least recently seen reader is the first to go beyond MAX_READERS
+  @Nullable
+  private LinkedHashMap<String, Entry> mEntries;
+
+  @Nullable
+  private File mFile;
+
+  private boolean mDirty = false;
+
+  // held for the whole of writeIfDirty, which runs both on the event dispatcher and from release(), so two
+  // writes never share the .tmp file. Separate from this so that update() never waits on file IO
+  @NonNull
+  private final Object mWriteLock = new Object();
+
+  // the cache lives in the same directory as the SDK database, or filesDir if the SDK chose the database path
+  void load(@NonNull File directory) {
+    File file = new File(directory, FILE_NAME);
+    LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    if (file.exists()) {
+      try {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+          if (in.readInt() == VERSION) {
+            int count = in.readInt();
+            for (int i = 0; i < count && i < MAX_READERS; i++) {
+              Entry entry = new Entry(in.readUTF(), in.readUTF(), in.readFloat(), in.readFloat(), in.readByte());
+              entries.put(entry.id, entry);
+            }
+          }
+        } finally {
+          in.close();
+        }
+      } catch (IOException e) {
+        Log.w("GallagherMobileAccess", "ignoring unreadable reader cache", e);
+        entries.clear();
+      }
+    }
+    synchronized (this) {
+      mFile = file;
+      mEntries = entries;
+    }
+  }
+
+  // returns true if this reader is new or its metadata changed, meaning the file needs writing
+  synchronized boolean update(@NonNull ReaderAttributes reader) {
+    if (mEntries == null) {
+      return false;
+    }
+    int flags = 0;
+    if (reader.isBleManualConnectEnabled()) flags |= PackedReaderEncoder.FLAG_BLE_MANUAL_CONNECT_ENABLED;
+    if (reader.isBleAutoConnectEnabled()) flags |= PackedReaderEncoder.FLAG_BLE_AUTO_CONNECT_ENABLED;
+    if (reader.isSecondFactorRequired()) flags |= PackedReaderEncoder.FLAG_SECOND_FACTOR_REQUIRED;
+    if (reader.isBleActionsEnabled()) flags |= PackedReaderEncoder.FLAG_BLE_ACTIONS_ENABLED;
+    float autoConnectPathLoss = (float) reader.getAutoConnectPathLoss();
+    float manualConnectPathLoss = (float) reader.getManualConnectPathLoss();
+
+    Entry existing = mEntries.get(reader.getId()); // also marks it most recently seen
+    if (existing != null && existing.flags == flags && existing.autoConnectPathLoss == autoConnectPathLoss
+      && existing.manualConnectPathLoss == manualConnectPathLoss && existing.name.equals(reader.getName())) {
+      return false;
+    }
+    mEntries.put(reader.getId(), new Entry(reader.getId(), reader.getName(), autoConnectPathLoss, manualConnectPathLoss, flags));
+    Iterator<Entry> it = mEntries.values().iterator();
+    while (mEntries.size() > MAX_READERS && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+    mDirty = true;
+    return true;
+  }
+
+  @NonNull
+  synchronized List<Entry> getAll() {
+    return mEntries != null ? new ArrayList<>(mEntries.values()) : new ArrayList<Entry>();
+  }
+
+  // writes the file if anything changed since it was last written. To a temporary file first, so that a
+  // crash part way through leaves the previous version intact. The snapshot is taken under mWriteLock too, so
+  // whichever write finishes last wrote the newer entries
+  void writeIfDirty() {
+    synchronized (mWriteLock) {
+      List<Entry> entries;
+      File file;
+      synchronized (this) {
+        if (!mDirty || mEntries == null || mFile == null) {
+          return;
+        }
+        entries = new ArrayList<>(mEntries.values());
+        file = mFile;
+        mDirty = false;
+      }
+      File temp = new File(file.getPath() + ".tmp");
+      try {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+          out.writeInt(VERSION);
+          out.writeInt(entries.size());
+          for (Entry entry : entries) {
+            out.writeUTF(entry.id);
+            out.writeUTF(entry.name);
+            out.writeFloat(entry.autoConnectPathLoss);
+            out.writeFloat(entry.manualConnectPathLoss);
+            out.writeByte(entry.flags);
+          }
+        } finally {
+          out.close();
+        }
+        if (!temp.renameTo(file)) {
+          throw new IOException("could not replace " + file);
+        }
+      } catch (IOException e) {
+        Log.w("GallagherMobileAccess", "could not write reader cache", e);
+        synchronized (this) {
+          mDirty = true; // try again next time
+        }
+      }
+    }
+  }
+}
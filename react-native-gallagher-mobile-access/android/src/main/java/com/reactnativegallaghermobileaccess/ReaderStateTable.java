@@ -0,0 +1,192 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.gallagher.security.mobileaccess.ReaderAttributes;
+import com.gallagher.security.mobileaccess.ReaderDistance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Native copy of the last known attributes of every reader in range.
+// Each entry remembers which fields have changed since they were last sent to JS, so that
+// readerUpdated only has to carry the fields which actually moved (usually just measuredPathLoss).
+// measuredPathLoss holds the last significant value according to the ReaderUpdateFilter, not the raw sample.
+// Written from the SDK callback thread, read from the flush and React method threads, hence synchronized
+class ReaderStateTable {
+  static final int FIELD_NAME = 1;
+  static final int FIELD_MEASURED_PATH_LOSS = 1 << 1;
+  static final int FIELD_DISTANCE = 1 << 2;
+  static final int FIELD_AUTO_CONNECT_PATH_LOSS = 1 << 3;
+  static final int FIELD_MANUAL_CONNECT_PATH_LOSS = 1 << 4;
+  static final int FIELD_IS_BLE_MANUAL_CONNECT_ENABLED = 1 << 5;
+  static final int FIELD_IS_BLE_AUTO_CONNECT_ENABLED = 1 << 6;
+  static final int FIELD_IS_SECOND_FACTOR_REQUIRED = 1 << 7;
+  static final int FIELD_IS_BLE_ACTIONS_ENABLED = 1 << 8;
+  static final int ALL_FIELDS = (1 << 9) - 1;
+
+  static final class Snapshot {
+    @NonNull
+    final String id;
+    @NonNull
+    String name;
+    double measuredPathLoss;
+    @NonNull
+    ReaderDistance distance;
+    double autoConnectPathLoss;
+    double manualConnectPathLoss;
+    boolean isBleManualConnectEnabled;
+    boolean isBleAutoConnectEnabled;
+    boolean isSecondFactorRequired;
+    boolean isBleActionsEnabled;
+
+    // bitmask of FIELD_ constants that have not yet been sent to JS
+    int changedFields;
+
+    // running average of the raw samples; measuredPathLoss only follows it when the filter allows
+    double smoothedPathLoss;
+
+    Snapshot(@NonNull ReaderAttributes reader) {
+      this.id = reader.getId();
+      this.name = reader.getName();
+      this.measuredPathLoss = reader.getMeasuredPathLoss();
+      this.distance = reader.getReaderDistance();
+      this.autoConnectPathLoss = reader.getAutoConnectPathLoss();
+      this.manualConnectPathLoss = reader.getManualConnectPathLoss();
+      this.isBleManualConnectEnabled = reader.isBleManualConnectEnabled();
+      this.isBleAutoConnectEnabled = reader.isBleAutoConnectEnabled();
+      this.isSecondFactorRequired = reader.isSecondFactorRequired();
+      this.isBleActionsEnabled = reader.isBleActionsEnabled();
+      this.changedFields = ALL_FIELDS;
+      this.smoothedPathLoss = this.measuredPathLoss;
+    }
+
+    private Snapshot(@NonNull Snapshot other) {
+      this.id = other.id;
+      this.name = other.name;
+      this.measuredPathLoss = other.measuredPathLoss;
+      this.distance = other.distance;
+      this.autoConnectPathLoss = other.autoConnectPathLoss;
+      this.manualConnectPathLoss = other.manualConnectPathLoss;
+      this.isBleManualConnectEnabled = other.isBleManualConnectEnabled;
+      this.isBleAutoConnectEnabled = other.isBleAutoConnectEnabled;
+      this.isSecondFactorRequired = other.isSecondFactorRequired;
+      this.isBleActionsEnabled = other.isBleActionsEnabled;
+      this.changedFields = other.changedFields;
+      this.smoothedPathLoss = other.smoothedPathLoss;
+    }
+
+    // merges the reader into this snapshot, accumulating any differences into changedFields.
+    // returns false if there is nothing waiting to be sent to JS
+    boolean apply(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateFilter filter) {
+      String newName = reader.getName();
+      if (!name.equals(newName)) {
+        name = newName;
+        changedFields |= FIELD_NAME;
+      }
+      ReaderDistance newDistance = reader.getReaderDistance();
+      boolean distanceChanged = distance != newDistance;
+      if (distanceChanged) {
+        distance = newDistance;
+        changedFields |= FIELD_DISTANCE;
+      }
+      smoothedPathLoss = filter.smooth(smoothedPathLoss, reader.getMeasuredPathLoss());
+      if (filter.isPathLossSignificant(measuredPathLoss, smoothedPathLoss, distanceChanged)) {
+        measuredPathLoss = smoothedPathLoss;
+        changedFields |= FIELD_MEASURED_PATH_LOSS;
+      }
+      double newAutoConnectPathLoss = reader.getAutoConnectPathLoss();
+      if (autoConnectPathLoss != newAutoConnectPathLoss) {
+        autoConnectPathLoss = newAutoConnectPathLoss;
+        changedFields |= FIELD_AUTO_CONNECT_PATH_LOSS;
+      }
+      double newManualConnectPathLoss = reader.getManualConnectPathLoss();
+      if (manualConnectPathLoss != newManualConnectPathLoss) {
+        manualConnectPathLoss = newManualConnectPathLoss;
+        changedFields |= FIELD_MANUAL_CONNECT_PATH_LOSS;
+      }
+      if (isBleManualConnectEnabled != reader.isBleManualConnectEnabled()) {
+        isBleManualConnectEnabled = !isBleManualConnectEnabled;
+        changedFields |= FIELD_IS_BLE_MANUAL_CONNECT_ENABLED;
+      }
+      if (isBleAutoConnectEnabled != reader.isBleAutoConnectEnabled()) {
+        isBleAutoConnectEnabled = !isBleAutoConnectEnabled;
+        changedFields |= FIELD_IS_BLE_AUTO_CONNECT_ENABLED;
+      }
+      if (isSecondFactorRequired != reader.isSecondFactorRequired()) {
+        isSecondFactorRequired = !isSecondFactorRequired;
+        changedFields |= FIELD_IS_SECOND_FACTOR_REQUIRED;
+      }
+      if (isBleActionsEnabled != reader.isBleActionsEnabled()) {
+        isBleActionsEnabled = !isBleActionsEnabled;
+        changedFields |= FIELD_IS_BLE_ACTIONS_ENABLED;
+      }
+      return changedFields != 0;
+    }
+
+    @NonNull
+    Snapshot copy() {
+      return new Snapshot(this);
+    }
+  }
+
+  @NonNull
+  private final Map<String, Snapshot> mReaders = new HashMap<>();
+
+  @NonNull
+  private final ReaderUpdateFilter mFilter;
+
+  ReaderStateTable(@NonNull ReaderUpdateFilter filter) {
+    mFilter = filter;
+  }
+
+  // returns false if, once filtered, there is nothing about this reader that needs sending to JS
+  synchronized boolean update(@NonNull ReaderAttributes reader) {
+    Snapshot existing = mReaders.get(reader.getId());
+    if (existing == null) {
+      mReaders.put(reader.getId(), new Snapshot(reader)); // new readers always go out in full
+      return true;
+    }
+    return existing.apply(reader, mFilter);
+  }
+
+  synchronized void remove(@NonNull String readerId) {
+    mReaders.remove(readerId);
+  }
+
+  synchronized void clear() {
+    mReaders.clear();
+  }
+
+  // returns a copy of the reader including the fields changed since the last call, and then resets them.
+  // returns null if the reader is no longer present
+  @Nullable
+  synchronized Snapshot takeChanges(@NonNull String readerId) {
+    Snapshot existing = mReaders.get(readerId);
+    if (existing == null) {
+      return null;
+    }
+    Snapshot result = existing.copy();
+    existing.changedFields = 0;
+    return result;
+  }
+
+  // forces the next update for every reader to be a full snapshot, e.g. after JS re-subscribes
+  synchronized void markAllChanged() {
+    for (Snapshot snapshot : mReaders.values()) {
+      snapshot.changedFields = ALL_FIELDS;
+    }
+  }
+
+  @NonNull
+  synchronized List<Snapshot> getAll() {
+    List<Snapshot> result = new ArrayList<>(mReaders.size());
+    for (Snapshot snapshot : mReaders.values()) {
+      result.add(snapshot.copy());
+    }
+    return result;
+  }
+}
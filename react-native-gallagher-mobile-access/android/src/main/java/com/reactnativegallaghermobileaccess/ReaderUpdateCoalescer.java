@@ -0,0 +1,57 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+
+import com.gallagher.security.mobileaccess.ReaderAttributes;
+import com.gallagher.security.mobileaccess.ReaderUpdateType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The SDK calls onReaderUpdated for every RSSI tick of every reader in range, which is far more often
+// than any UI can usefully redraw. This holds only the most recent update per reader id, so that the
+// module can flush them to JS as one batched event on a fixed interval.
+// Called from the SDK callback thread (offer) and the flush thread (drain), hence synchronized
+class ReaderUpdateCoalescer {
+  static final class Update {
+    @NonNull
+    final ReaderAttributes reader;
+
+    @NonNull
+    final ReaderUpdateType updateType;
+
+    Update(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateType updateType) {
+      this.reader = reader;
+      this.updateType = updateType;
+    }
+  }
+
+  // insertion ordered, so a batch preserves the order in which readers first changed
+  @NonNull
+  private final LinkedHashMap<String, Update> mPending = new LinkedHashMap<>();
+
+  // updates which replaced a pending one for the same reader, i.e. never reached JS on their own
+  private final AtomicLong mCoalesced = new AtomicLong();
+
+  // returns true if this is the first update since the last drain, meaning the caller should schedule a flush
+  synchronized boolean offer(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateType updateType) {
+    boolean wasEmpty = mPending.isEmpty();
+    if (mPending.put(reader.getId(), new Update(reader, updateType)) != null) {
+      mCoalesced.incrementAndGet();
+    }
+    return wasEmpty;
+  }
+
+  long getCoalesced() {
+    return mCoalesced.get();
+  }
+
+  @NonNull
+  synchronized List<Update> drain() {
+    List<Update> result = new ArrayList<>(mPending.values());
+    mPending.clear();
+    return result;
+  }
+}
@@ -0,0 +1,76 @@
+package com.reactnativegallaghermobileaccess;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Decides whether a change in measuredPathLoss is worth telling JS about.
+// measuredPathLoss jitters by a dB or two on every BLE advertisement, so left alone nearly every
+// SDK callback turns into a bridge event. Applied by ReaderStateTable before anything is serialized.
+//
+// - pathLossSmoothing: weight of the newest sample in an exponentially weighted moving average.
+//   1 (the default) disables smoothing
+// - minPathLossDelta: the smoothed path loss must move at least this many dB away from the value
+//   last reported before it is reported again. 0 (the default) reports every change
+// - distanceChangesOnly: path loss is only reported alongside a change in ReaderDistance
+class ReaderUpdateFilter {
+  private volatile double mPathLossSmoothing = 1.0;
+  private volatile double mMinPathLossDelta = 0.0;
+  private volatile boolean mDistanceChangesOnly = false;
+
+  private final AtomicLong mReceived = new AtomicLong();
+  private final AtomicLong mSuppressed = new AtomicLong();
+
+  void setPathLossSmoothing(double pathLossSmoothing) {
+    if (pathLossSmoothing <= 0 || pathLossSmoothing > 1) {
+      throw new IllegalArgumentException("pathLossSmoothing must be greater than 0 and at most 1");
+    }
+    mPathLossSmoothing = pathLossSmoothing;
+  }
+
+  void setMinPathLossDelta(double minPathLossDelta) {
+    if (minPathLossDelta < 0) {
+      throw new IllegalArgumentException("minPathLossDelta must not be negative");
+    }
+    mMinPathLossDelta = minPathLossDelta;
+  }
+
+  void setDistanceChangesOnly(boolean distanceChangesOnly) {
+    mDistanceChangesOnly = distanceChangesOnly;
+  }
+
+  double smooth(double previousSmoothed, double sample) {
+    double alpha = mPathLossSmoothing;
+    return alpha * sample + (1 - alpha) * previousSmoothed;
+  }
+
+  boolean isPathLossSignificant(double lastReported, double candidate, boolean distanceChanged) {
+    if (distanceChanged) {
+      return candidate != lastReported;
+    }
+    if (mDistanceChangesOnly) {
+      return false;
+    }
+    double delta = Math.abs(candidate - lastReported);
+    return delta > 0 && delta >= mMinPathLossDelta;
+  }
+
+  void recordReceived() {
+    mReceived.incrementAndGet();
+  }
+
+  void recordSuppressed() {
+    mSuppressed.incrementAndGet();
+  }
+
+  long getReceived() {
+    return mReceived.get();
+  }
+
+  long getSuppressed() {
+    return mSuppressed.get();
+  }
+
+  void resetCounters() {
+    mReceived.set(0);
+    mSuppressed.set(0);
+  }
+}
@@ -0,0 +1,136 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.gallagher.security.mobileaccess.AccessResult;
+import com.gallagher.security.mobileaccess.MobileAccessState;
+import com.gallagher.security.mobileaccess.Reader;
+import com.gallagher.security.mobileaccess.ReaderConnectionError;
+
+import java.util.Collection;
+
+// Sticky state for JS which arrives after the fact: a screen mounted after startup, or a reloaded JS
+// environment. Keeps the last SDK state and the last few access events, whether or not anything was
+// listening when they happened, so that getReplay can hand them over in one call. (The reader set comes
+// from the module's reader state table, which is already sticky.)
+//
+// Process wide, like the event bus it subscribes to, so it carries on across a React instance being
+// replaced, including one running headless. Unlike BackgroundEventBuffer, reading doesn't consume anything.
+class ReplayBuffer extends MobileAccessEventBus.SimpleSubscriber implements MobileAccessEventBus.StateNamesSubscriber {
+  static final int DEFAULT_ACCESS_EVENTS = 20;
+  static final int MAX_ACCESS_EVENTS = 256;
+
+  private static final ReplayBuffer INSTANCE = new ReplayBuffer();
+
+  static {
+    // internal: the module decides for itself whether to keep the SDK listeners hooked for us
+    MobileAccessEventBus.getInstance().subscribeInternal(INSTANCE,
+      MobileAccessEventBus.SDK_STATE | MobileAccessEventBus.ACCESS);
+  }
+
+  @NonNull
+  static ReplayBuffer getInstance() {
+    return INSTANCE;
+  }
+
+  // all guarded by this
+  private boolean mHasSdkState = false;
+  private boolean mIsScanning;
+  @NonNull
+  private String[] mStateNames = new String[0];
+  private long mSdkStateTimestamp;
+
+  // a ring of MAX_ACCESS_EVENTS slots, of which the newest mCount (at most mCapacity) are live
+  @NonNull
+  private final BackgroundEventBuffer.Event[] mAccessEvents = new BackgroundEventBuffer.Event[MAX_ACCESS_EVENTS];
+  private int mNext = 0;
+  private int mCount = 0;
+  private int mCapacity = DEFAULT_ACCESS_EVENTS;
+
+  private ReplayBuffer() {
+  }
+
+  synchronized void setCapacity(int capacity) {
+    if (capacity < 0 || capacity > MAX_ACCESS_EVENTS) {
+      throw new IllegalArgumentException("accessEvents must be between 0 and " + MAX_ACCESS_EVENTS);
+    }
+    mCapacity = capacity;
+    mCount = Math.min(mCount, capacity);
+  }
+
+  // the bus calls onSdkStateNamesChanged instead
+  @Override
+  public void onSdkStateChanged(boolean isScanning, @NonNull Collection<MobileAccessState> states) {
+    onSdkStateNamesChanged(isScanning, GallagherMobileAccessModule.serializeSdkStateNames(states));
+  }
+
+  // holds on to the publisher's memoized array; see SdkStateMemo.update
+  @Override
+  public void onSdkStateNamesChanged(boolean isScanning, @NonNull String[] stateNames) {
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      mHasSdkState = true;
+      mIsScanning = isScanning;
+      mStateNames = stateNames;
+      mSdkStateTimestamp = now;
+    }
+  }
+
+  @Override
+  public void onAccessStarted(@NonNull Reader reader) {
+    add(BackgroundEventBuffer.Event.of(reader, "started"));
+  }
+
+  @Override
+  public void onAccessCompleted(@NonNull Reader reader, @Nullable AccessResult result, @Nullable ReaderConnectionError error) {
+    add(BackgroundEventBuffer.Event.completed(reader, result, error));
+  }
+
+  @Override
+  public void onReturnToReaderRequired(@NonNull Reader reader) {
+    add(BackgroundEventBuffer.Event.of(reader, "returnToReaderRequired"));
+  }
+
+  @Override
+  public void onReturnedToReader(@NonNull Reader reader) {
+    add(BackgroundEventBuffer.Event.of(reader, "returnToReaderComplete"));
+  }
+
+  private synchronized void add(@NonNull BackgroundEventBuffer.Event event) {
+    if (mCapacity == 0) {
+      return;
+    }
+    mAccessEvents[mNext] = event;
+    mNext = (mNext + 1) % MAX_ACCESS_EVENTS;
+    mCount = Math.min(mCount + 1, mCapacity);
+  }
+
+  // { isScanning, states, timestamp } as of the last sdkStateChanged, or null if there hasn't been one
+  @Nullable
+  synchronized WritableMap serializeSdkState() {
+    if (!mHasSdkState) {
+      return null;
+    }
+    WritableMap result = new WritableNativeMap();
+    result.putBoolean("isScanning", mIsScanning);
+    result.putArray("states", GallagherMobileAccessModule.serializeSdkStates(mStateNames));
+    result.putDouble("timestamp", mSdkStateTimestamp);
+    return result;
+  }
+
+  // oldest first, shaped as "access" events
+  @NonNull
+  synchronized WritableArray serializeAccessEvents() {
+    WritableArray result = new WritableNativeArray();
+    int start = (mNext - mCount + MAX_ACCESS_EVENTS) % MAX_ACCESS_EVENTS;
+    for (int n = 0; n < mCount; n++) {
+      result.pushMap(BackgroundEventBuffer.serialize(mAccessEvents[(start + n) % MAX_ACCESS_EVENTS]));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,76 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+
+import com.gallagher.security.mobileaccess.BluetoothScanMode;
+
+// Picks a BluetoothScanMode for the "adaptive" background scanning mode: scan hard when the user is
+// likely to be at a door, and leave the radio alone otherwise. In order of precedence:
+// - readersNearby: a reader is at medium or near distance                       -> BACKGROUND_LOW_LATENCY
+// - recentAccess: there was an access attempt in the last RECENT_ACCESS_MS      -> BACKGROUND_LOW_LATENCY
+// - appActive: the app is in the foreground, or was until RECENT_FOREGROUND_MS ago, and the battery
+//   isn't low (below LOW_BATTERY_PERCENT and not charging)                      -> BACKGROUND_LOW_LATENCY
+// - idle: none of the above                                                     -> BACKGROUND_SCREEN_ON
+//
+// Low battery is part of idle rather than a mode of its own: BACKGROUND_SCREEN_ON is already the cheapest
+// mode that still scans in the background, and FOREGROUND_ONLY would mean never seeing a reader nearby, so
+// never switching back up, and no automatic access until the app was next opened. All low battery does is
+// rule out appActive; readers nearby and recent access still scan hard, as the user is at a door.
+//
+// The mode only governs scanning while the app is in the background; in the foreground the SDK scans
+// at full rate whatever it is set to. So appActive is about the next minute or so rather than now: the
+// user who just left the app (or is about to) is the one most likely to be walking up to a door.
+//
+// The module supplies the inputs it can only sample (reader distances, battery) on each evaluation, and
+// reports the events (foreground changes, access) as they happen. Times are SystemClock.elapsedRealtime
+class ScanPolicy {
+  static final long RECENT_ACCESS_MS = 2 * 60 * 1000;
+  static final long RECENT_FOREGROUND_MS = 60 * 1000;
+  static final int LOW_BATTERY_PERCENT = 20;
+
+  static final class Decision {
+    @NonNull
+    final BluetoothScanMode mode;
+    @NonNull
+    final String reason;
+
+    Decision(@NonNull BluetoothScanMode mode, @NonNull String reason) {
+      this.mode = mode;
+      this.reason = reason;
+    }
+  }
+
+  private static final Decision READERS_NEARBY = new Decision(BluetoothScanMode.BACKGROUND_LOW_LATENCY, "readersNearby");
+  private static final Decision RECENT_ACCESS = new Decision(BluetoothScanMode.BACKGROUND_LOW_LATENCY, "recentAccess");
+  private static final Decision APP_ACTIVE = new Decision(BluetoothScanMode.BACKGROUND_LOW_LATENCY, "appActive");
+  private static final Decision IDLE = new Decision(BluetoothScanMode.BACKGROUND_SCREEN_ON, "idle");
+
+  private volatile boolean mForeground = false;
+  private volatile long mLastForegroundMillis = Long.MIN_VALUE / 2;
+  private volatile long mLastAccessMillis = Long.MIN_VALUE / 2;
+
+  void setForeground(boolean foreground, long nowMillis) {
+    mForeground = foreground;
+    mLastForegroundMillis = nowMillis;
+  }
+
+  void recordAccess(long nowMillis) {
+    mLastAccessMillis = nowMillis;
+  }
+
+  // batteryPercent is -1 if unknown
+  @NonNull
+  Decision decide(int nearbyReaders, int batteryPercent, boolean charging, long nowMillis) {
+    if (nearbyReaders > 0) {
+      return READERS_NEARBY;
+    }
+    if (nowMillis - mLastAccessMillis < RECENT_ACCESS_MS) {
+      return RECENT_ACCESS;
+    }
+    boolean lowBattery = batteryPercent >= 0 && batteryPercent < LOW_BATTERY_PERCENT && !charging;
+    if (!lowBattery && (mForeground || nowMillis - mLastForegroundMillis < RECENT_FOREGROUND_MS)) {
+      return APP_ACTIVE;
+    }
+    return IDLE;
+  }
+}
@@ -0,0 +1,76 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.gallagher.security.mobileaccess.MobileAccessState;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Remembers the last SDK state reported to JS, and its serialized form.
+// The SDK calls onStateChanged repeatedly with the same state set; comparing the set as a bitmask of
+// ordinals lets us recognise a repeat without building anything, and only a genuine change pays for the
+// array of names. A list is walked by index, so that a repeat allocates nothing at all; any other
+// collection costs an iterator.
+class SdkStateMemo {
+  private static final int MAX_ORDINAL = 63; // states beyond this don't fit in the mask; never memoized
+  private static final long NOT_MEMOIZABLE = -1; // every bit set, which no real state set is
+
+  private boolean mHasValue = false;
+  private boolean mIsScanning;
+  private long mStateMask;
+
+  @NonNull
+  private String[] mStateNames = new String[0];
+
+  // returns the serialized state names if this differs from the last state we saw, or null if it is a repeat.
+  // The same array is returned for as long as the set of states is the same (i.e. when only isScanning
+  // changed), and is never modified, so callers may hold on to it
+  @Nullable
+  synchronized String[] update(boolean isScanning, @NonNull Collection<MobileAccessState> states) {
+    long mask = mask(states);
+    boolean memoizable = mask != NOT_MEMOIZABLE;
+
+    if (memoizable && mHasValue && isScanning == mIsScanning && mask == mStateMask) {
+      return null;
+    }
+
+    if (!memoizable || mask != mStateMask || !mHasValue) {
+      mStateNames = GallagherMobileAccessModule.serializeSdkStateNames(states);
+    }
+    mHasValue = memoizable;
+    mIsScanning = isScanning;
+    mStateMask = mask;
+    return mStateNames;
+  }
+
+  private static long mask(@NonNull Collection<MobileAccessState> states) {
+    long mask = 0;
+    if (states instanceof List && states instanceof RandomAccess) {
+      List<MobileAccessState> list = (List<MobileAccessState>) states;
+      for (int i = 0; i < list.size(); i++) {
+        int ordinal = list.get(i).ordinal();
+        if (ordinal > MAX_ORDINAL) {
+          return NOT_MEMOIZABLE;
+        }
+        mask |= 1L << ordinal;
+      }
+      return mask;
+    }
+    for (MobileAccessState state : states) {
+      int ordinal = state.ordinal();
+      if (ordinal > MAX_ORDINAL) {
+        return NOT_MEMOIZABLE;
+      }
+      mask |= 1L << ordinal;
+    }
+    return mask;
+  }
+
+  // the next update will be reported even if it is a repeat, e.g. for a new JS subscriber
+  synchronized void reset() {
+    mHasValue = false;
+  }
+}
@@ -0,0 +1,490 @@
+package com.reactnativegallaghermobileaccess;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import androidx.annotation.NonNull;
+
+import com.gallagher.security.mobileaccess.AccessListener;
+import com.gallagher.security.mobileaccess.AutomaticAccessListener;
+import com.gallagher.security.mobileaccess.BluetoothScanMode;
+import com.gallagher.security.mobileaccess.CredentialDeleteListener;
+import com.gallagher.security.mobileaccess.DeleteOption;
+import com.gallagher.security.mobileaccess.MobileAccessState;
+import com.gallagher.security.mobileaccess.MobileCredential;
+import com.gallagher.security.mobileaccess.Reader;
+import com.gallagher.security.mobileaccess.ReaderAttributes;
+import com.gallagher.security.mobileaccess.ReaderDistance;
+import com.gallagher.security.mobileaccess.ReaderUpdateListener;
+import com.gallagher.security.mobileaccess.ReaderUpdateType;
+import com.gallagher.security.mobileaccess.RegistrationListener;
+import com.gallagher.security.mobileaccess.SdkStateListener;
+import com.gallagher.security.mobileaccess.SecondFactorAuthenticationType;
+import com.gallagher.security.mobileaccess.SecondFactorAuthenticationTypeSelector;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// A MobileAccessBackend with no hardware or network behind it, for load testing the module.
+// Simulates a building full of virtual readers whose path loss wanders about (a mean-reverting random
+// walk plus per-sample noise), credential registration with or without a second factor, and deletes.
+//
+// Everything is driven from a seeded Random, so a given seed and set of Options always produces the same
+// sequence of readings. Callbacks arrive on the simulator's own thread, as the SDK's would: a HandlerThread
+// by default, or whatever Scheduler the constructor is given. With a Scheduler that runs tasks when told to,
+// the simulator needs nothing from Android, and tests can drive it deterministically on a plain JVM. tick()
+// advances the simulation by one step and may also be called directly, from any thread.
+//
+// Access isn't simulated: the SDK gives us no way to construct an AccessResult or a ReaderConnectionError,
+// so there is nothing a simulated access attempt could complete with. The module rejects requestAccess
+// against the simulator rather than calling it, and automatic access never fires.
+class SimulatedMobileAccessBackend implements MobileAccessBackend {
+  static final class Options {
+    int readerCount = 20;
+    long seed = 1;
+    int tickIntervalMs = 100;
+    double pathLossNoise = 2.0; // standard deviation of each reading about the reader's true path loss, dB
+    int registrationLatencyMs = 500;
+    boolean registrationRequiresSecondFactor = false;
+
+    void validate() {
+      if (readerCount < 0 || readerCount > 10000) {
+        throw new IllegalArgumentException("readerCount must be between 0 and 10000");
+      }
+      if (tickIntervalMs <= 0) {
+        throw new IllegalArgumentException("tickIntervalMs must be positive");
+      }
+      if (pathLossNoise < 0) {
+        throw new IllegalArgumentException("pathLossNoise must not be negative");
+      }
+      if (registrationLatencyMs < 0) {
+        throw new IllegalArgumentException("registrationLatencyMs must not be negative");
+      }
+    }
+  }
+
+  // where the simulator's callbacks and timer run
+  interface Scheduler {
+    void post(@NonNull Runnable task);
+
+    void postDelayed(@NonNull Runnable task, long delayMs);
+
+    // drops anything not yet run; nothing posted afterwards runs
+    void shutdown();
+  }
+
+  static final class HandlerScheduler implements Scheduler {
+    @NonNull
+    private final HandlerThread mThread;
+
+    @NonNull
+    private final Handler mHandler;
+
+    HandlerScheduler() {
+      mThread = new HandlerThread("GallagherMobileAccessSimulator");
+      mThread.start();
+      mHandler = new Handler(mThread.getLooper());
+    }
+
+    @Override
+    public void post(@NonNull Runnable task) {
+      mHandler.post(task);
+    }
+
+    @Override
+    public void postDelayed(@NonNull Runnable task, long delayMs) {
+      mHandler.postDelayed(task, delayMs);
+    }
+
+    @Override
+    public void shutdown() {
+      mHandler.removeCallbacksAndMessages(null);
+      mThread.quit();
+    }
+  }
+
+  // readers drift between these; beyond UNAVAILABLE_PATH_LOSS a reader is out of range
+  private static final double MIN_PATH_LOSS = 40;
+  private static final double MAX_PATH_LOSS = 110;
+  private static final double UNAVAILABLE_PATH_LOSS = 100;
+  private static final double WALK_STEP = 1.5;
+  private static final double MEAN_REVERSION = 0.02;
+
+  private static final class SimulatedReader implements ReaderAttributes {
+    @NonNull
+    final String id;
+    @NonNull
+    final String name;
+    final double autoConnectPathLoss;
+    final double manualConnectPathLoss;
+    final boolean isSecondFactorRequired;
+    final double restingPathLoss;
+
+    // guarded by the backend's mTickLock
+    double truePathLoss;
+    boolean available;
+
+    // the published reading, replaced whole each tick
+    volatile double measuredPathLoss;
+
+    SimulatedReader(int index, @NonNull Random random) {
+      id = String.format(Locale.ROOT, "sim-%04d", index);
+      name = "Simulated reader " + index;
+      autoConnectPathLoss = 50 + random.nextInt(10);
+      manualConnectPathLoss = autoConnectPathLoss + 15;
+      isSecondFactorRequired = random.nextInt(4) == 0;
+      restingPathLoss = 60 + random.nextDouble() * 45;
+      truePathLoss = restingPathLoss;
+      measuredPathLoss = restingPathLoss;
+    }
+
+    @NonNull
+    @Override
+    public String getId() {
+      return id;
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public double getMeasuredPathLoss() {
+      return measuredPathLoss;
+    }
+
+    @NonNull
+    @Override
+    public ReaderDistance getReaderDistance() {
+      double pathLoss = measuredPathLoss;
+      if (pathLoss <= autoConnectPathLoss) {
+        return ReaderDistance.NEAR;
+      }
+      if (pathLoss <= manualConnectPathLoss) {
+        return ReaderDistance.MEDIUM;
+      }
+      return ReaderDistance.FAR;
+    }
+
+    @Override
+    public double getAutoConnectPathLoss() {
+      return autoConnectPathLoss;
+    }
+
+    @Override
+    public double getManualConnectPathLoss() {
+      return manualConnectPathLoss;
+    }
+
+    @Override
+    public boolean isBleManualConnectEnabled() {
+      return true;
+    }
+
+    @Override
+    public boolean isBleAutoConnectEnabled() {
+      return true;
+    }
+
+    @Override
+    public boolean isSecondFactorRequired() {
+      return isSecondFactorRequired;
+    }
+
+    @Override
+    public boolean isBleActionsEnabled() {
+      return false;
+    }
+  }
+
+  private static final class SimulatedCredential implements MobileCredential {
+    @NonNull
+    final String id;
+    final int facilityId;
+    @NonNull
+    final String facilityName;
+    @NonNull
+    final Date registeredDate;
+
+    SimulatedCredential(@NonNull String id, int facilityId, @NonNull String facilityName) {
+      this.id = id;
+      this.facilityId = facilityId;
+      this.facilityName = facilityName;
+      this.registeredDate = new Date();
+    }
+
+    @NonNull
+    @Override
+    public String getId() {
+      return id;
+    }
+
+    @Override
+    public int getFacilityId() {
+      return facilityId;
+    }
+
+    @NonNull
+    @Override
+    public String getFacilityName() {
+      return facilityName;
+    }
+
+    @Override
+    public boolean isRevoked() {
+      return false;
+    }
+
+    @NonNull
+    @Override
+    public Date getRegisteredDate() {
+      return registeredDate;
+    }
+  }
+
+  @NonNull
+  private final Options mOptions;
+
+  // mRandom and each reader's walk are guarded by mTickLock: tick() runs on the scheduler, and tests may
+  // also call it directly
+  @NonNull
+  private final Object mTickLock = new Object();
+
+  @NonNull
+  private final Random mRandom;
+
+  @NonNull
+  private final List<SimulatedReader> mReaders = new ArrayList<>();
+
+  // guarded by itself
+  @NonNull
+  private final List<MobileCredential> mCredentials = new ArrayList<>();
+
+  private int mNextCredentialId = 1;
+
+  @NonNull
+  private final List<SdkStateListener> mSdkStateListeners = new CopyOnWriteArrayList<>();
+  @NonNull
+  private final List<ReaderUpdateListener> mReaderUpdateListeners = new CopyOnWriteArrayList<>();
+
+  private volatile boolean mScanning = true;
+
+  @NonNull
+  private final Scheduler mScheduler;
+
+  @NonNull
+  private final Runnable mTick = new Runnable() {
+    @Override
+    public void run() {
+      tick();
+      mScheduler.postDelayed(this, mOptions.tickIntervalMs);
+    }
+  };
+
+  SimulatedMobileAccessBackend(@NonNull Options options) {
+    this(options, new HandlerScheduler());
+  }
+
+  SimulatedMobileAccessBackend(@NonNull Options options, @NonNull Scheduler scheduler) {
+    options.validate();
+    mOptions = options;
+    mRandom = new Random(options.seed);
+    for (int i = 0; i < options.readerCount; i++) {
+      mReaders.add(new SimulatedReader(i, mRandom));
+    }
+    mScheduler = scheduler;
+  }
+
+  void start() {
+    mScheduler.postDelayed(mTick, mOptions.tickIntervalMs);
+  }
+
+  void shutdown() {
+    mScheduler.shutdown();
+  }
+
+  // moves every reader one step along its walk and reports the new readings. The walk is taken under
+  // mTickLock, and the listeners called outside it
+  void tick() {
+    if (!mScanning) {
+      return;
+    }
+    List<SimulatedReader> updated = new ArrayList<>();
+    List<ReaderUpdateType> updateTypes = new ArrayList<>();
+    synchronized (mTickLock) {
+      for (SimulatedReader reader : mReaders) {
+        double step = (mRandom.nextDouble() * 2 - 1) * WALK_STEP + (reader.restingPathLoss - reader.truePathLoss) * MEAN_REVERSION;
+        reader.truePathLoss = Math.max(MIN_PATH_LOSS, Math.min(MAX_PATH_LOSS, reader.truePathLoss + step));
+        reader.measuredPathLoss = reader.truePathLoss + mRandom.nextGaussian() * mOptions.pathLossNoise;
+
+        boolean available = reader.measuredPathLoss < UNAVAILABLE_PATH_LOSS;
+        if (available) {
+          reader.available = true;
+          updated.add(reader);
+          updateTypes.add(ReaderUpdateType.ATTRIBUTES_CHANGED);
+        } else if (reader.available) {
+          reader.available = false;
+          updated.add(reader);
+          updateTypes.add(ReaderUpdateType.READER_UNAVAILABLE);
+        }
+      }
+    }
+    for (int i = 0; i < updated.size(); i++) {
+      for (ReaderUpdateListener listener : mReaderUpdateListeners) {
+        listener.onReaderUpdated(updated.get(i), updateTypes.get(i));
+      }
+    }
+  }
+
+  private boolean hasCredentials() {
+    synchronized (mCredentials) {
+      return !mCredentials.isEmpty();
+    }
+  }
+
+  private void notifyStateChanged() {
+    mScheduler.post(new Runnable() {
+      @Override
+      public void run() {
+        Collection<MobileAccessState> states = getMobileAccessStates();
+        for (SdkStateListener listener : mSdkStateListeners) {
+          listener.onStateChanged(mScanning, states);
+        }
+      }
+    });
+  }
+
+  // ----- MobileAccessBackend ---------------------------------------------------------------------
+
+  @Override
+  public void addSdkStateListener(@NonNull SdkStateListener listener) {
+    mSdkStateListeners.add(listener);
+    notifyStateChanged();
+  }
+
+  @Override
+  public void removeSdkStateListener(@NonNull SdkStateListener listener) {
+    mSdkStateListeners.remove(listener);
+  }
+
+  @Override
+  public void addReaderUpdateListener(@NonNull ReaderUpdateListener listener) {
+    mReaderUpdateListeners.add(listener);
+  }
+
+  @Override
+  public void removeReaderUpdateListener(@NonNull ReaderUpdateListener listener) {
+    mReaderUpdateListeners.remove(listener);
+  }
+
+  // no access is simulated, so these have nothing to call
+  @Override
+  public void addAutomaticAccessListener(@NonNull AutomaticAccessListener listener) {
+  }
+
+  @Override
+  public void removeAutomaticAccessListener(@NonNull AutomaticAccessListener listener) {
+  }
+
+  @Override
+  public void setAutomaticAccessEnabled(boolean enabled) {
+  }
+
+  @Override
+  public void setScanning(boolean enabled) {
+    mScanning = enabled;
+    notifyStateChanged();
+  }
+
+  @Override
+  public void setBluetoothBackgroundScanMode(@NonNull BluetoothScanMode mode) {
+    // no radio to configure
+  }
+
+  // not called: the module rejects requestAccess against the simulator (see the class comment). Should
+  // anything else call it, the attempt simply never completes, as if the reader were out of range
+  @Override
+  public void requestAccess(@NonNull Reader reader, @NonNull AccessListener listener) {
+  }
+
+  @NonNull
+  @Override
+  public Collection<MobileAccessState> getMobileAccessStates() {
+    if (!hasCredentials()) {
+      return Collections.singletonList(MobileAccessState.ERROR_NO_CREDENTIALS);
+    }
+    return Collections.emptyList();
+  }
+
+  @NonNull
+  @Override
+  public URI resolveInvitationUri(@NonNull String host, @NonNull String invitationCode) throws URISyntaxException {
+    return new URI("https", host, "/api/invitations/" + invitationCode, null);
+  }
+
+  // completes after registrationLatencyMs, first asking for a second factor if the options say to
+  @Override
+  public void registerCredential(@NonNull final URI uri, @NonNull final RegistrationListener listener) {
+    final Runnable complete = new Runnable() {
+      @Override
+      public void run() {
+        MobileCredential credential;
+        synchronized (mCredentials) {
+          int id = mNextCredentialId++;
+          credential = new SimulatedCredential("sim-credential-" + id, id, "Simulated facility (" + uri.getHost() + ")");
+          mCredentials.add(credential);
+        }
+        listener.onRegistrationCompleted(credential, null);
+        notifyStateChanged();
+      }
+    };
+
+    if (!mOptions.registrationRequiresSecondFactor) {
+      mScheduler.postDelayed(complete, mOptions.registrationLatencyMs);
+      return;
+    }
+    mScheduler.postDelayed(new Runnable() {
+      @Override
+      public void run() {
+        listener.onAuthenticationTypeSelectionRequested(new SecondFactorAuthenticationTypeSelector() {
+          @Override
+          public void select(boolean secondFactorSelected, @NonNull SecondFactorAuthenticationType type) {
+            mScheduler.postDelayed(complete, mOptions.registrationLatencyMs);
+          }
+        });
+      }
+    }, mOptions.registrationLatencyMs);
+  }
+
+  @NonNull
+  @Override
+  public Collection<MobileCredential> getMobileCredentials() {
+    synchronized (mCredentials) {
+      return new ArrayList<>(mCredentials);
+    }
+  }
+
+  @Override
+  public void deleteMobileCredential(@NonNull final MobileCredential credential, @NonNull DeleteOption option, @NonNull final CredentialDeleteListener listener) {
+    mScheduler.post(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (mCredentials) {
+          mCredentials.remove(credential);
+        }
+        listener.onCredentialDeleteCompleted(credential, null);
+        notifyStateChanged();
+      }
+    });
+  }
+}
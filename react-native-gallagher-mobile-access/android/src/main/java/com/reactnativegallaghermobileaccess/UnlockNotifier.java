@@ -0,0 +1,245 @@
+package com.reactnativegallaghermobileaccess;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import com.gallagher.security.mobileaccess.AccessResult;
+import com.gallagher.security.mobileaccess.Reader;
+import com.gallagher.security.mobileaccess.ReaderConnectionError;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Posts a notification for each access result, as configured from JS with setUnlockNotifications. A native
+// event bus subscriber, so notifications keep coming while JS isn't listening or isn't there at all.
+//
+// Walking through a bank of turnstiles, or standing at a reader, produces a burst of results, so:
+// - a result the same as the last one for the same reader within throttleMs is dropped outright
+// - every notification replaces the previous one (one notification id), rather than stacking up
+// - only the first notification within throttleMs alerts (sound, vibration, screen on); the rest update quietly
+// The builder is created once and only has its text changed per notification.
+class UnlockNotifier extends MobileAccessEventBus.SimpleSubscriber {
+  static final int NOTIFICATION_ID = 0x6a11aa;
+
+  static final int OUTCOME_GRANTED = 0;
+  static final int OUTCOME_DENIED = 1;
+  static final int OUTCOME_ERROR = 2;
+
+  // per reader history beyond this is pruned of anything outside the throttle window
+  static final int MAX_TRACKED_READERS = 64;
+
+  static final String READER_PLACEHOLDER = "{reader}";
+  static final String MESSAGE_PLACEHOLDER = "{message}";
+
+  static final class Options {
+    @NonNull
+    String channelId = "gallagher-mobile-access-unlock";
+    @NonNull
+    String channelName = "Unlocks";
+    @Nullable
+    String smallIcon; // drawable resource name; the app icon if null
+    @NonNull
+    String grantedTitle = "Access granted";
+    @NonNull
+    String grantedText = READER_PLACEHOLDER;
+    @NonNull
+    String deniedTitle = "Access denied";
+    @NonNull
+    String deniedText = READER_PLACEHOLDER + ": " + MESSAGE_PLACEHOLDER;
+    @NonNull
+    String errorTitle = "Couldn't connect";
+    @NonNull
+    String errorText = READER_PLACEHOLDER + ": " + MESSAGE_PLACEHOLDER;
+    boolean notifyDenied = true;
+    boolean notifyErrors = false;
+    long throttleMs = 10000;
+
+    void validate() {
+      if (throttleMs < 0) {
+        throw new IllegalArgumentException("throttleMs must not be negative");
+      }
+    }
+  }
+
+  private static final class Last {
+    final int outcome;
+    final long millis;
+
+    Last(int outcome, long millis) {
+      this.outcome = outcome;
+      this.millis = millis;
+    }
+  }
+
+  @NonNull
+  private final Context mContext;
+
+  @NonNull
+  private final Options mOptions;
+
+  // notifications are posted from here rather than the SDK's callback thread, as notify is a binder call
+  @NonNull
+  private final EventDispatcher mDispatcher;
+
+  // guarded by this
+  @NonNull
+  private final Map<String, Last> mLastByReader = new HashMap<>();
+  private long mLastAlertMillis = Long.MIN_VALUE / 2;
+
+  // only touched on the dispatcher thread
+  @Nullable
+  private NotificationCompat.Builder mBuilder;
+
+  private final AtomicLong mPosted = new AtomicLong();
+  private final AtomicLong mCollapsed = new AtomicLong();
+
+  UnlockNotifier(@NonNull Context context, @NonNull Options options, @NonNull EventDispatcher dispatcher) {
+    mContext = context.getApplicationContext();
+    mOptions = options;
+    mDispatcher = dispatcher;
+  }
+
+  long getPosted() {
+    return mPosted.get();
+  }
+
+  long getCollapsed() {
+    return mCollapsed.get();
+  }
+
+  @Override
+  public void onAccessCompleted(@NonNull Reader reader, @Nullable AccessResult result, @Nullable ReaderConnectionError error) {
+    final int outcome;
+    final String message;
+    if (error != null) {
+      if (!mOptions.notifyErrors) {
+        return;
+      }
+      outcome = OUTCOME_ERROR;
+      message = error.getLocalizedMessage();
+    } else if (result != null) {
+      outcome = result.isAccessGranted() ? OUTCOME_GRANTED : OUTCOME_DENIED;
+      if (outcome == OUTCOME_DENIED && !mOptions.notifyDenied) {
+        return;
+      }
+      message = result.getAccessDecision().toString();
+    } else {
+      return;
+    }
+
+    long now = SystemClock.elapsedRealtime();
+    final boolean alert;
+    synchronized (this) {
+      Last last = mLastByReader.get(reader.getId());
+      if (last != null && last.outcome == outcome && now - last.millis < mOptions.throttleMs) {
+        mCollapsed.incrementAndGet();
+        return;
+      }
+      mLastByReader.put(reader.getId(), new Last(outcome, now));
+      if (mLastByReader.size() > MAX_TRACKED_READERS) {
+        pruneLocked(now);
+      }
+      alert = now - mLastAlertMillis >= mOptions.throttleMs;
+      if (alert) {
+        mLastAlertMillis = now;
+      }
+    }
+
+    final String title;
+    final String text;
+    switch (outcome) {
+      case OUTCOME_GRANTED:
+        title = mOptions.grantedTitle;
+        text = fill(mOptions.grantedText, reader.getName(), message);
+        break;
+      case OUTCOME_DENIED:
+        title = mOptions.deniedTitle;
+        text = fill(mOptions.deniedText, reader.getName(), message);
+        break;
+      default:
+        title = mOptions.errorTitle;
+        text = fill(mOptions.errorText, reader.getName(), message);
+        break;
+    }
+    mDispatcher.submit(new Runnable() {
+      @Override
+      public void run() {
+        post(title, text, alert);
+      }
+    }, EventDispatcher.Lane.NORMAL);
+  }
+
+  // takes down whatever we last posted, e.g. when unlock notifications are turned off
+  void cancel() {
+    NotificationManagerCompat.from(mContext).cancel(NOTIFICATION_ID);
+  }
+
+  private void pruneLocked(long now) {
+    Iterator<Last> it = mLastByReader.values().iterator();
+    while (it.hasNext()) {
+      if (now - it.next().millis >= mOptions.throttleMs) {
+        it.remove();
+      }
+    }
+  }
+
+  private void post(@NonNull String title, @NonNull String text, boolean alert) {
+    NotificationCompat.Builder builder = mBuilder;
+    if (builder == null) {
+      builder = createBuilder();
+      mBuilder = builder;
+    }
+    builder
+      .setContentTitle(title)
+      .setContentText(text)
+      .setWhen(System.currentTimeMillis())
+      .setOnlyAlertOnce(!alert);
+    NotificationManagerCompat.from(mContext).notify(NOTIFICATION_ID, builder.build());
+    mPosted.incrementAndGet();
+  }
+
+  @NonNull
+  private NotificationCompat.Builder createBuilder() {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      NotificationManager manager = (NotificationManager) mContext.getSystemService(Context.NOTIFICATION_SERVICE);
+      manager.createNotificationChannel(new NotificationChannel(mOptions.channelId, mOptions.channelName,
+        NotificationManager.IMPORTANCE_DEFAULT));
+    }
+    int smallIcon = 0;
+    if (mOptions.smallIcon != null) {
+      smallIcon = mContext.getResources().getIdentifier(mOptions.smallIcon, "drawable", mContext.getPackageName());
+    }
+    if (smallIcon == 0) {
+      smallIcon = mContext.getApplicationInfo().icon;
+    }
+    NotificationCompat.Builder builder = new NotificationCompat.Builder(mContext, mOptions.channelId)
+      .setSmallIcon(smallIcon)
+      .setAutoCancel(true)
+      .setCategory(NotificationCompat.CATEGORY_STATUS);
+    Intent launch = mContext.getPackageManager().getLaunchIntentForPackage(mContext.getPackageName());
+    if (launch != null) {
+      builder.setContentIntent(PendingIntent.getActivity(mContext, 0, launch,
+        BackgroundAccessService.pendingIntentFlags()));
+    }
+    return builder;
+  }
+
+  @NonNull
+  static String fill(@NonNull String template, @NonNull String readerName, @Nullable String message) {
+    return template
+      .replace(READER_PLACEHOLDER, readerName)
+      .replace(MESSAGE_PLACEHOLDER, message != null ? message : "");
+  }
+}
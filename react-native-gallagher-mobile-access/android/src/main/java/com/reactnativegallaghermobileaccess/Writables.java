@@ -0,0 +1,56 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+// Where the static serializers get their maps and arrays. Always the native ones in the app; the JMH
+// benchmarks (src/jmh) run on a plain JVM, without React Native's native libraries, so they swap in
+// JavaOnlyMap and JavaOnlyArray to time the serializers themselves.
+class Writables {
+  interface Factory {
+    @NonNull
+    WritableMap createMap();
+
+    @NonNull
+    WritableArray createArray();
+  }
+
+  @NonNull
+  static final Factory NATIVE = new Factory() {
+    @NonNull
+    @Override
+    public WritableMap createMap() {
+      return new WritableNativeMap();
+    }
+
+    @NonNull
+    @Override
+    public WritableArray createArray() {
+      return new WritableNativeArray();
+    }
+  };
+
+  @NonNull
+  private static volatile Factory sFactory = NATIVE;
+
+  private Writables() {
+  }
+
+  static void setFactory(@NonNull Factory factory) {
+    sFactory = factory;
+  }
+
+  @NonNull
+  static WritableMap createMap() {
+    return sFactory.createMap();
+  }
+
+  @NonNull
+  static WritableArray createArray() {
+    return sFactory.createArray();
+  }
+}
@@ -0,0 +1,115 @@
+package com.reactnativegallaghermobileaccess;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventJournalTest {
+  private static List<String> dump(EventJournal journal) throws IOException {
+    File file = File.createTempFile("journal", ".csv");
+    try {
+      journal.writeTo(file);
+      List<String> lines = new ArrayList<>();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          lines.add(line);
+        }
+      } finally {
+        reader.close();
+      }
+      return lines;
+    } finally {
+      file.delete();
+    }
+  }
+
+  // the code column of each record
+  private static List<Integer> codes(List<String> lines) {
+    List<Integer> codes = new ArrayList<>();
+    for (String line : lines.subList(1, lines.size())) {
+      codes.add(Integer.parseInt(line.substring(line.lastIndexOf(',') + 1)));
+    }
+    return codes;
+  }
+
+  @Test
+  public void writesOldestFirst() throws IOException {
+    EventJournal journal = new EventJournal();
+    journal.record(EventJournal.READER_UPDATED, "reader-1", 72.5, 0);
+    journal.record(EventJournal.ACCESS_STARTED, "reader-1", 0, 1);
+    journal.record(EventJournal.STATE_CHANGED, null, 1, 2);
+
+    List<String> lines = dump(journal);
+    assertEquals("time,type,reader,value,code", lines.get(0));
+    assertEquals(4, lines.size());
+    assertTrue(lines.get(1).endsWith(",readerUpdated,reader-1,72.5,0"));
+    assertTrue(lines.get(2).endsWith(",accessStarted,reader-1,0.0,1"));
+    assertTrue(lines.get(3).endsWith(",stateChanged,,1.0,2"));
+  }
+
+  @Test
+  public void writesOldestFirstOnceFull() throws IOException {
+    EventJournal journal = new EventJournal();
+    int records = EventJournal.CAPACITY + 100;
+    for (int i = 0; i < records; i++) {
+      journal.record(EventJournal.READER_UPDATED, "reader-" + (i % 3), i, i);
+    }
+    List<Integer> codes = codes(dump(journal));
+    assertEquals(EventJournal.CAPACITY, codes.size());
+    for (int i = 0; i < codes.size(); i++) {
+      assertEquals(100 + i, (int) codes.get(i));
+    }
+  }
+
+  @Test
+  public void clearEmptiesTheDump() throws IOException {
+    EventJournal journal = new EventJournal();
+    journal.record(EventJournal.ACCESS_STARTED, "reader-1", 0, 0);
+    journal.clear();
+    assertEquals(1, dump(journal).size());
+  }
+
+  // records keep arriving while a dump is written; the dump is a consistent run of consecutive records
+  @Test
+  public void recordsDuringADump() throws Exception {
+    final EventJournal journal = new EventJournal();
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicLong recorded = new AtomicLong();
+    Thread recorder = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        int code = 0;
+        while (!done.get()) {
+          journal.record(EventJournal.READER_UPDATED, "reader", 0, code++);
+          recorded.incrementAndGet();
+        }
+      }
+    });
+    recorder.start();
+    try {
+      for (int dump = 0; dump < 20; dump++) {
+        List<Integer> codes = codes(dump(journal));
+        for (int i = 1; i < codes.size(); i++) {
+          assertEquals(codes.get(i - 1) + 1, (int) codes.get(i));
+        }
+      }
+    } finally {
+      done.set(true);
+      recorder.join();
+    }
+    assertTrue(recorded.get() > 0);
+  }
+}
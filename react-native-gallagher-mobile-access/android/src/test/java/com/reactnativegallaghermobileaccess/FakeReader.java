@@ -0,0 +1,89 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+
+import com.gallagher.security.mobileaccess.ReaderAttributes;
+import com.gallagher.security.mobileaccess.ReaderDistance;
+
+// A ReaderAttributes whose fields the test sets directly, standing in for the SDK's readers
+class FakeReader implements ReaderAttributes {
+  @NonNull
+  final String id;
+  @NonNull
+  String name;
+  double measuredPathLoss;
+  @NonNull
+  ReaderDistance distance = ReaderDistance.FAR;
+  double autoConnectPathLoss = 55;
+  double manualConnectPathLoss = 70;
+  boolean isSecondFactorRequired = false;
+
+  FakeReader(@NonNull String id, double measuredPathLoss) {
+    this.id = id;
+    this.name = "Reader " + id;
+    this.measuredPathLoss = measuredPathLoss;
+  }
+
+  // the readers a busy site might report: ids "reader-0" onwards, spread over the range of path losses
+  @NonNull
+  static FakeReader[] many(int count) {
+    FakeReader[] readers = new FakeReader[count];
+    for (int i = 0; i < count; i++) {
+      readers[i] = new FakeReader("reader-" + i, 50 + (i * 7) % 50);
+    }
+    return readers;
+  }
+
+  @NonNull
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @NonNull
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public double getMeasuredPathLoss() {
+    return measuredPathLoss;
+  }
+
+  @NonNull
+  @Override
+  public ReaderDistance getReaderDistance() {
+    return distance;
+  }
+
+  @Override
+  public double getAutoConnectPathLoss() {
+    return autoConnectPathLoss;
+  }
+
+  @Override
+  public double getManualConnectPathLoss() {
+    return manualConnectPathLoss;
+  }
+
+  @Override
+  public boolean isBleManualConnectEnabled() {
+    return true;
+  }
+
+  @Override
+  public boolean isBleAutoConnectEnabled() {
+    return true;
+  }
+
+  @Override
+  public boolean isSecondFactorRequired() {
+    return isSecondFactorRequired;
+  }
+
+  @Override
+  public boolean isBleActionsEnabled() {
+    return false;
+  }
+}
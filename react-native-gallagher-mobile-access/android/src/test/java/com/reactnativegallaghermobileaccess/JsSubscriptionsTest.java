@@ -0,0 +1,85 @@
+package com.reactnativegallaghermobileaccess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JsSubscriptionsTest {
+  @Test
+  public void everythingIsSubscribedUntilAddListener() {
+    JsSubscriptions subscriptions = new JsSubscriptions();
+    assertTrue(subscriptions.has("access"));
+    subscriptions.add("readerUpdated");
+    assertFalse(subscriptions.has("access"));
+    assertTrue(subscriptions.has("readerUpdated"));
+  }
+
+  @Test
+  public void removingEverythingForgetsEveryEvent() {
+    JsSubscriptions subscriptions = new JsSubscriptions();
+    subscriptions.add("access");
+    subscriptions.add("readerUpdated");
+    subscriptions.remove(1);
+    // we can't tell which went away
+    assertTrue(subscriptions.has("access"));
+    assertTrue(subscriptions.has("readerUpdated"));
+    subscriptions.remove(1);
+    assertFalse(subscriptions.has("access"));
+    assertFalse(subscriptions.has("readerUpdated"));
+  }
+
+  @Test
+  public void clearStartsTracking() {
+    JsSubscriptions subscriptions = new JsSubscriptions();
+    subscriptions.clear();
+    assertFalse(subscriptions.has("access"));
+  }
+
+  @Test
+  public void exactSubscriptionsAreCountedPerEvent() {
+    JsSubscriptions subscriptions = new JsSubscriptions();
+    subscriptions.subscribe("access");
+    subscriptions.subscribe("access");
+    subscriptions.subscribe("readerUpdated");
+    assertFalse(subscriptions.has("sdkStateChanged"));
+
+    subscriptions.unsubscribe("readerUpdated");
+    assertFalse(subscriptions.has("readerUpdated"));
+    assertTrue(subscriptions.has("access"));
+    subscriptions.unsubscribe("access");
+    assertTrue(subscriptions.has("access"));
+    subscriptions.unsubscribe("access");
+    assertFalse(subscriptions.has("access"));
+    // unbalanced unsubscribes are ignored rather than going negative
+    subscriptions.unsubscribe("access");
+    subscriptions.subscribe("access");
+    assertTrue(subscriptions.has("access"));
+  }
+
+  @Test
+  public void exactSubscriptionsReplaceCounts() {
+    // React Native 0.65+ calls addListener as well as the exported emitter calling subscribe
+    JsSubscriptions subscriptions = new JsSubscriptions();
+    subscriptions.add("readerUpdated");
+    subscriptions.subscribe("access");
+    subscriptions.add("access");
+    assertFalse(subscriptions.has("readerUpdated"));
+
+    subscriptions.remove(1);
+    assertTrue(subscriptions.has("access"));
+    subscriptions.unsubscribe("access");
+    assertFalse(subscriptions.has("access"));
+  }
+
+  @Test
+  public void clearForgetsExactSubscriptions() {
+    JsSubscriptions subscriptions = new JsSubscriptions();
+    subscriptions.subscribe("access");
+    subscriptions.clear();
+    assertFalse(subscriptions.has("access"));
+    // the next React instance may only use addListener
+    subscriptions.add("access");
+    assertTrue(subscriptions.has("access"));
+  }
+}
@@ -0,0 +1,77 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A SimulatedMobileAccessBackend.Scheduler which only runs tasks when the test advances its clock, on the
+// test's own thread. Tasks due at the same time run in the order they were posted
+class ManualScheduler implements SimulatedMobileAccessBackend.Scheduler {
+  private static final class Task {
+    final long dueMs;
+    final long sequence;
+    @NonNull
+    final Runnable runnable;
+
+    Task(long dueMs, long sequence, @NonNull Runnable runnable) {
+      this.dueMs = dueMs;
+      this.sequence = sequence;
+      this.runnable = runnable;
+    }
+  }
+
+  @NonNull
+  private final List<Task> mTasks = new ArrayList<>();
+  private long mNowMs = 0;
+  private long mSequence = 0;
+  private boolean mShutdown = false;
+
+  @Override
+  public synchronized void post(@NonNull Runnable task) {
+    postDelayed(task, 0);
+  }
+
+  @Override
+  public synchronized void postDelayed(@NonNull Runnable task, long delayMs) {
+    if (!mShutdown) {
+      mTasks.add(new Task(mNowMs + delayMs, mSequence++, task));
+    }
+  }
+
+  @Override
+  public synchronized void shutdown() {
+    mShutdown = true;
+    mTasks.clear();
+  }
+
+  // runs everything due up to and including now + ms, including tasks those tasks post
+  void advance(long ms) {
+    long until;
+    synchronized (this) {
+      until = mNowMs + ms;
+    }
+    while (true) {
+      Task next = null;
+      synchronized (this) {
+        for (Task task : mTasks) {
+          if (task.dueMs <= until && (next == null || task.dueMs < next.dueMs
+            || (task.dueMs == next.dueMs && task.sequence < next.sequence))) {
+            next = task;
+          }
+        }
+        if (next == null) {
+          mNowMs = until;
+          return;
+        }
+        mTasks.remove(next);
+        mNowMs = next.dueMs;
+      }
+      next.runnable.run();
+    }
+  }
+
+  synchronized int pending() {
+    return mTasks.size();
+  }
+}
@@ -0,0 +1,135 @@
+package com.reactnativegallaghermobileaccess;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.gallagher.security.mobileaccess.ReaderUpdateType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Payload size of a readersUpdated batch, packed versus an array of maps, for sites of 50 to 200 readers.
+// The maps are measured as the JSON they'd be written as, which is roughly what the bridge carries and
+// what JS has to turn back into objects; the packed batch is its base64 string. See decodePackedReaders in
+// __tests__ for the JS side.
+public class PackedReaderPayloadTest {
+  private static final int[] SITE_SIZES = {50, 100, 200};
+
+  @Before
+  public void setUp() {
+    Writables.setFactory(new Writables.Factory() {
+      @Override
+      public WritableMap createMap() {
+        return new JavaOnlyMap();
+      }
+
+      @Override
+      public WritableArray createArray() {
+        return new JavaOnlyArray();
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    Writables.setFactory(Writables.NATIVE);
+  }
+
+  private static int base64Length(int bytes) {
+    return (bytes + 2) / 3 * 4;
+  }
+
+  // { packed }
+  private static int packedPayload(FakeReader[] readers) {
+    PackedReaderEncoder encoder = new PackedReaderEncoder();
+    for (FakeReader reader : readers) {
+      encoder.add(new ReaderStateTable.Snapshot(reader), PackedReaderEncoder.UPDATE_TYPE_ATTRIBUTES_CHANGED);
+    }
+    return "{\"packed\":\"\"}".length() + base64Length(encoder.encode().length);
+  }
+
+  // { updates: [{ updateType, reader }] }, every reader sent in full as a new reader is
+  private static int mapPayload(FakeReader[] readers) {
+    WritableArray updates = Writables.createArray();
+    for (FakeReader reader : readers) {
+      WritableMap update = Writables.createMap();
+      update.putString("updateType", GallagherMobileAccessModule.serializeReaderUpdateType(ReaderUpdateType.ATTRIBUTES_CHANGED));
+      update.putMap("reader", GallagherMobileAccessModule.serializeReaderSnapshot(new ReaderStateTable.Snapshot(reader),
+        ReaderStateTable.ALL_FIELDS));
+      updates.pushMap(update);
+    }
+    WritableMap body = Writables.createMap();
+    body.putArray("updates", updates);
+    return jsonLength(((JavaOnlyMap) body).toHashMap());
+  }
+
+  // the length of value written as JSON; enough of JSON for what the serializers produce
+  private static int jsonLength(Object value) {
+    if (value == null) {
+      return 4;
+    }
+    if (value instanceof String) {
+      return ((String) value).length() + 2;
+    }
+    if (value instanceof Boolean) {
+      return value.toString().length();
+    }
+    if (value instanceof Number) {
+      double number = ((Number) value).doubleValue();
+      return number == Math.rint(number) ? Long.toString((long) number).length() : Double.toString(number).length();
+    }
+    int length = 2; // brackets or braces
+    int count = 0;
+    if (value instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        length += jsonLength(entry.getKey()) + 1 + jsonLength(entry.getValue());
+        count++;
+      }
+    } else {
+      for (Object element : (List<?>) value) {
+        length += jsonLength(element);
+        count++;
+      }
+    }
+    return length + Math.max(0, count - 1); // commas
+  }
+
+  @Test
+  public void packedLayoutSize() {
+    FakeReader[] readers = FakeReader.many(3);
+    PackedReaderEncoder encoder = new PackedReaderEncoder();
+    int strings = 0;
+    for (FakeReader reader : readers) {
+      encoder.add(new ReaderStateTable.Snapshot(reader), PackedReaderEncoder.UPDATE_TYPE_ATTRIBUTES_CHANGED);
+      strings += 2 + reader.id.length() + 2 + reader.name.length();
+    }
+    assertEquals(PackedReaderEncoder.HEADER_SIZE + 3 * PackedReaderEncoder.RECORD_SIZE + strings,
+      encoder.encode().length);
+  }
+
+  @Test
+  public void packedIsUnderAThirdOfTheMapsAtEverySiteSize() {
+    for (int readers : SITE_SIZES) {
+      FakeReader[] site = FakeReader.many(readers);
+      int packed = packedPayload(site);
+      int maps = mapPayload(site);
+      assertTrue(readers + " readers: packed " + packed + " bytes, maps " + maps + " bytes", packed * 3 < maps);
+    }
+  }
+
+  @Test
+  public void packedGrowsByAFixedRecordPerReader() {
+    // ids and names are the only variable part; FakeReader's grow by a digit from 100 readers
+    int perReaderAt100 = (packedPayload(FakeReader.many(200)) - packedPayload(FakeReader.many(100))) / 100;
+    int record = base64Length(PackedReaderEncoder.RECORD_SIZE + 2 + "reader-100".length() + 2 + "Reader reader-100".length());
+    assertTrue("per reader " + perReaderAt100 + " bytes", perReaderAt100 <= record);
+  }
+}
@@ -0,0 +1,275 @@
+package com.reactnativegallaghermobileaccess;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PendingRegistrationsTest {
+  private static final long NOW = 10 * 60 * 1000;
+  // stands in for AnonymousRegistrationListener: counts expiries, and whether it had started waiting first
+  private static final class FakeRegistration implements PendingRegistrations.Registration {
+    final AtomicInteger expired = new AtomicInteger();
+    volatile boolean waiting = false;
+    volatile boolean expiredInFlight = false;
+
+    @Override
+    public void expire() {
+      if (!waiting) {
+        expiredInFlight = true;
+      }
+      expired.incrementAndGet();
+    }
+  }
+
+  @Test
+  public void evictsOnlyWaitingRegistrations() {
+    PendingRegistrations<FakeRegistration> pending = new PendingRegistrations<>();
+    pending.setMaxPending(2);
+
+    FakeRegistration inFlight = new FakeRegistration();
+    pending.put("in-flight", inFlight);
+    FakeRegistration first = new FakeRegistration();
+    pending.put("first", first);
+    first.waiting = pending.awaitContinuation("first", NOW);
+    FakeRegistration second = new FakeRegistration();
+    pending.put("second", second);
+    second.waiting = pending.awaitContinuation("second", NOW);
+    assertEquals(2, pending.waiting());
+
+    FakeRegistration third = new FakeRegistration();
+    pending.put("third", third);
+    third.waiting = pending.awaitContinuation("third", NOW);
+
+    assertEquals(1, first.expired.get());
+    assertEquals(0, second.expired.get());
+    assertEquals(0, third.expired.get());
+    assertEquals(0, inFlight.expired.get());
+    assertEquals(2, pending.waiting());
+    assertNull(pending.take("first", NOW));
+    assertSame(inFlight, pending.take("in-flight", NOW));
+  }
+
+  @Test
+  public void inFlightRegistrationsDontCountTowardsMaxPending() {
+    PendingRegistrations<FakeRegistration> pending = new PendingRegistrations<>();
+    pending.setMaxPending(1);
+    List<FakeRegistration> inFlight = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      FakeRegistration registration = new FakeRegistration();
+      inFlight.add(registration);
+      pending.put("in-flight-" + i, registration);
+    }
+    FakeRegistration waiting = new FakeRegistration();
+    pending.put("waiting", waiting);
+    waiting.waiting = pending.awaitContinuation("waiting", NOW);
+
+    for (FakeRegistration registration : inFlight) {
+      assertEquals(0, registration.expired.get());
+    }
+    assertEquals(0, waiting.expired.get());
+    assertEquals(11, pending.size());
+  }
+
+  @Test
+  public void awaitContinuationAfterRemoveIsIgnored() {
+    PendingRegistrations<FakeRegistration> pending = new PendingRegistrations<>();
+    pending.put("gone", new FakeRegistration());
+    pending.remove("gone");
+    assertTrue(!pending.awaitContinuation("gone", NOW));
+    assertEquals(0, pending.waiting());
+  }
+
+  @Test
+  public void waitingRegistrationsExpireAfterTheTtl() {
+    PendingRegistrations<FakeRegistration> pending = new PendingRegistrations<>();
+    pending.setTtl(1000);
+    FakeRegistration registration = new FakeRegistration();
+    pending.put("abandoned", registration);
+    registration.waiting = pending.awaitContinuation("abandoned", NOW);
+
+    pending.removeExpired(NOW + 999);
+    assertEquals(0, registration.expired.get());
+    assertEquals(1, pending.waiting());
+
+    pending.removeExpired(NOW + 1000);
+    assertEquals(1, registration.expired.get());
+    assertEquals(0, pending.size());
+    assertNull(pending.take("abandoned", NOW + 1000));
+    // registerCredentialContinue can tell JS why, once
+    assertTrue(pending.forgetExpired("abandoned"));
+    assertFalse(pending.forgetExpired("abandoned"));
+  }
+
+  @Test
+  public void takeExpiresFirst() {
+    PendingRegistrations<FakeRegistration> pending = new PendingRegistrations<>();
+    pending.setTtl(1000);
+    FakeRegistration registration = new FakeRegistration();
+    pending.put("late", registration);
+    registration.waiting = pending.awaitContinuation("late", NOW);
+
+    assertNull(pending.take("late", NOW + 1000));
+    assertEquals(1, registration.expired.get());
+    assertTrue(pending.forgetExpired("late"));
+  }
+
+  @Test
+  public void ttlStartsWhenWaitingStarts() {
+    PendingRegistrations<FakeRegistration> pending = new PendingRegistrations<>();
+    pending.setTtl(1000);
+    FakeRegistration inFlight = new FakeRegistration();
+    pending.put("in-flight", inFlight);
+    FakeRegistration slow = new FakeRegistration();
+    pending.put("slow", slow);
+    // the SDK took a long time to ask for the second factor; that doesn't count
+    slow.waiting = pending.awaitContinuation("slow", NOW + 5000);
+
+    pending.removeExpired(NOW + 5999);
+    assertEquals(0, slow.expired.get());
+    pending.removeExpired(NOW + 6000);
+    assertEquals(1, slow.expired.get());
+    // and in-flight registrations never expire
+    pending.removeExpired(NOW + 60 * 60 * 1000);
+    assertEquals(0, inFlight.expired.get());
+    assertSame(inFlight, pending.take("in-flight", NOW + 60 * 60 * 1000));
+    assertFalse(pending.forgetExpired("in-flight"));
+  }
+
+  @Test
+  public void evictedRegistrationsAreReportedAsExpired() {
+    PendingRegistrations<FakeRegistration> pending = new PendingRegistrations<>();
+    pending.setMaxPending(1);
+    FakeRegistration first = new FakeRegistration();
+    pending.put("first", first);
+    first.waiting = pending.awaitContinuation("first", NOW);
+    FakeRegistration second = new FakeRegistration();
+    pending.put("second", second);
+    second.waiting = pending.awaitContinuation("second", NOW);
+
+    assertEquals(1, first.expired.get());
+    assertTrue(pending.forgetExpired("first"));
+    assertFalse(pending.forgetExpired("second"));
+  }
+
+  @Test
+  public void onlyTheLastFewExpiriesAreRemembered() {
+    PendingRegistrations<FakeRegistration> pending = new PendingRegistrations<>();
+    pending.setTtl(1000);
+    int count = PendingRegistrations.MAX_EXPIRED + 10;
+    for (int i = 0; i < count; i++) {
+      FakeRegistration registration = new FakeRegistration();
+      pending.put("expired-" + i, registration);
+      registration.waiting = pending.awaitContinuation("expired-" + i, NOW);
+    }
+    pending.removeExpired(NOW + 1000);
+    assertFalse(pending.forgetExpired("expired-0"));
+    assertFalse(pending.forgetExpired("expired-9"));
+    assertTrue(pending.forgetExpired("expired-10"));
+    assertTrue(pending.forgetExpired("expired-" + (count - 1)));
+  }
+
+  // Many threads registering, some completing straight away and some waiting for a continuation which
+  // may or may not come, against a small maxPending. Every registration must end exactly once: taken by
+  // its continuation, removed when the SDK completes it, or expired, and only ever expired while waiting.
+  @Test
+  public void concurrentRegistrationsEndExactlyOnce() throws InterruptedException {
+    final PendingRegistrations<FakeRegistration> pending = new PendingRegistrations<>();
+    pending.setMaxPending(8);
+    final int threads = 16;
+    final int registrationsPerThread = 5000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicInteger taken = new AtomicInteger();
+    final AtomicInteger completed = new AtomicInteger();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final List<FakeRegistration> all = new ArrayList<>();
+    final List<String> abandoned = new ArrayList<>();
+
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      final int thread = t;
+      final List<FakeRegistration> mine = new ArrayList<>();
+      final List<String> myAbandoned = new ArrayList<>();
+      Thread worker = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            Random random = new Random(thread);
+            start.await();
+            for (int i = 0; i < registrationsPerThread; i++) {
+              String continuationPoint = thread + "-" + i;
+              FakeRegistration registration = new FakeRegistration();
+              mine.add(registration);
+              pending.put(continuationPoint, registration);
+              switch (random.nextInt(3)) {
+                case 0: // no second factor: the SDK completes it
+                  pending.remove(continuationPoint);
+                  completed.incrementAndGet();
+                  break;
+                case 1: // second factor, continued unless it was evicted first
+                  registration.waiting = true;
+                  pending.awaitContinuation(continuationPoint, NOW);
+                  if (pending.take(continuationPoint, NOW) != null) {
+                    taken.incrementAndGet();
+                  }
+                  break;
+                default: // second factor, abandoned
+                  registration.waiting = true;
+                  pending.awaitContinuation(continuationPoint, NOW);
+                  myAbandoned.add(continuationPoint);
+                  break;
+              }
+            }
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          } finally {
+            synchronized (all) {
+              all.addAll(mine);
+              abandoned.addAll(myAbandoned);
+            }
+          }
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+
+    assertTrue(pending.waiting() <= 8);
+    // what's left is abandoned and still within maxPending; continuing it ends it too
+    for (String continuationPoint : abandoned) {
+      if (pending.take(continuationPoint, NOW) != null) {
+        taken.incrementAndGet();
+      }
+    }
+    assertEquals(0, pending.size());
+    assertEquals(0, pending.waiting());
+
+    int expired = 0;
+    int registrations = 0;
+    for (FakeRegistration registration : all) {
+      registrations++;
+      assertTrue(registration.expired.get() <= 1);
+      assertTrue(!registration.expiredInFlight);
+      expired += registration.expired.get();
+    }
+    assertEquals(threads * registrationsPerThread, registrations);
+    assertEquals(registrations, taken.get() + completed.get() + expired);
+  }
+}
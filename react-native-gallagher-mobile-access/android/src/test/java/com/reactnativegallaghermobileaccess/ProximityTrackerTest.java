@@ -0,0 +1,158 @@
+package com.reactnativegallaghermobileaccess;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProximityTrackerTest {
+  private static final double AUTO_CONNECT = 55;
+  private static final double MANUAL_CONNECT = 70;
+  private static final long INTERVAL_MS = 250;
+
+  // Feeds a trace to a tracker and collects the changes it reports. Each leg of the trace is a duration at
+  // a constant rate of change, starting from wherever the last one left off
+  private static final class Trace {
+    final ProximityTracker tracker = new ProximityTracker();
+    final List<ProximityTracker.Change> changes = new ArrayList<>();
+    long now = 0;
+    double pathLoss;
+    double noise = 0; // alternately added and subtracted, as the crudest jitter
+
+    Trace(double pathLoss) {
+      this.pathLoss = pathLoss;
+    }
+
+    Trace leg(long durationMs, double dbPerSecond) {
+      for (long elapsed = 0; elapsed < durationMs; elapsed += INTERVAL_MS) {
+        double reading = pathLoss + ((now / INTERVAL_MS) % 2 == 0 ? noise : -noise);
+        ProximityTracker.Change change = tracker.update("reader", now, reading, AUTO_CONNECT, MANUAL_CONNECT);
+        if (change != null) {
+          changes.add(change);
+        }
+        now += INTERVAL_MS;
+        pathLoss += dbPerSecond * INTERVAL_MS / 1000.0;
+      }
+      return this;
+    }
+  }
+
+  @Test
+  public void approaching() {
+    Trace trace = new Trace(90).leg(6000, -3);
+
+    assertEquals(1, trace.changes.size());
+    ProximityTracker.Change change = trace.changes.get(0);
+    assertEquals(ProximityTracker.TREND_APPROACHING, change.trend);
+    assertEquals(-3, change.slopeDbPerSecond, 1e-9);
+    // reported as soon as there's MIN_SPAN_MS of readings: 7 readings, the last at 1.5s, at 85.5 dB
+    assertEquals(85.5, change.pathLoss, 1e-9);
+    assertEquals((85.5 - MANUAL_CONNECT) / 3, change.secondsToManualConnect, 1e-9);
+    assertEquals((85.5 - AUTO_CONNECT) / 3, change.secondsToAutoConnect, 1e-9);
+  }
+
+  @Test
+  public void approachingPastTheThresholds() {
+    Trace trace = new Trace(74).leg(2000, -3);
+
+    assertEquals(1, trace.changes.size());
+    ProximityTracker.Change change = trace.changes.get(0);
+    assertEquals(ProximityTracker.TREND_APPROACHING, change.trend);
+    assertEquals(0, change.secondsToManualConnect, 0); // 69.5 dB: past manual connect already
+    assertEquals((69.5 - AUTO_CONNECT) / 3, change.secondsToAutoConnect, 1e-9);
+
+    change = new Trace(55).leg(2000, -3).changes.get(0);
+    assertEquals(0, change.secondsToManualConnect, 0);
+    assertEquals(0, change.secondsToAutoConnect, 0);
+  }
+
+  @Test
+  public void receding() {
+    Trace trace = new Trace(60).leg(6000, 3);
+
+    assertEquals(1, trace.changes.size());
+    ProximityTracker.Change change = trace.changes.get(0);
+    assertEquals(ProximityTracker.TREND_RECEDING, change.trend);
+    assertEquals(3, change.slopeDbPerSecond, 1e-9);
+    assertTrue(Double.isNaN(change.secondsToManualConnect));
+    assertTrue(Double.isNaN(change.secondsToAutoConnect));
+  }
+
+  @Test
+  public void steadyWithNoise() {
+    Trace trace = new Trace(80);
+    trace.noise = 2;
+    trace.leg(20000, 0);
+    assertTrue(trace.changes.isEmpty());
+  }
+
+  @Test
+  public void slowDriftIsSteady() {
+    // just under ENTER_SLOPE either way never leaves steady
+    assertTrue(new Trace(90).leg(10000, -1.4).changes.isEmpty());
+    assertTrue(new Trace(60).leg(10000, 1.4).changes.isEmpty());
+  }
+
+  @Test
+  public void hysteresis() {
+    // approaching at 3 dB/s, then slowing to 1 dB/s: between EXIT_SLOPE and ENTER_SLOPE, so still
+    // approaching. Only once it stops does it go back to steady
+    Trace trace = new Trace(95).leg(2000, -3).leg(8000, -1);
+    assertEquals(1, trace.changes.size());
+    assertEquals(ProximityTracker.TREND_APPROACHING, trace.changes.get(0).trend);
+
+    trace.leg(8000, 0);
+    assertEquals(2, trace.changes.size());
+    ProximityTracker.Change steady = trace.changes.get(1);
+    assertEquals(ProximityTracker.TREND_STEADY, steady.trend);
+    assertTrue(Math.abs(steady.slopeDbPerSecond) < ProximityTracker.EXIT_SLOPE);
+    assertTrue(Double.isNaN(steady.secondsToManualConnect));
+
+    // and turning round goes straight to receding
+    trace.leg(4000, 3);
+    assertEquals(3, trace.changes.size());
+    assertEquals(ProximityTracker.TREND_RECEDING, trace.changes.get(2).trend);
+  }
+
+  @Test
+  public void hysteresisThresholds() {
+    // 1.5 dB/s exactly is enough to enter, 0.5 dB/s exactly isn't enough to leave
+    Trace trace = new Trace(90).leg(4000, -1.5);
+    assertEquals(1, trace.changes.size());
+    trace.leg(8000, -0.5);
+    assertEquals(1, trace.changes.size());
+    trace.leg(8000, -0.25);
+    assertEquals(2, trace.changes.size());
+    assertEquals(ProximityTracker.TREND_STEADY, trace.changes.get(1).trend);
+  }
+
+  @Test
+  public void estimateSlopeNeedsEnoughReadings() {
+    double[] result = new double[2];
+    long[] times = {0, 500, 1000, 1400};
+    double[] pathLosses = {80, 79, 78, 77};
+    assertFalse(ProximityTracker.estimateSlope(times, pathLosses, 4, 0, result)); // under MIN_SPAN_MS
+    assertFalse(ProximityTracker.estimateSlope(times, pathLosses, 3, 0, result)); // under MIN_SAMPLES
+
+    times = new long[] {0, 500, 1000, 1500};
+    assertTrue(ProximityTracker.estimateSlope(times, pathLosses, 4, 0, result));
+    assertEquals(-2, result[0], 1e-9);
+    assertEquals(77, result[1], 1e-9);
+    // readings before sinceMillis are ignored
+    assertFalse(ProximityTracker.estimateSlope(times, pathLosses, 4, 1, result));
+  }
+
+  @Test
+  public void estimateSlopeIgnoresBufferOrder() {
+    double[] result = new double[2];
+    long[] times = {1500, 0, 500, 1000};
+    double[] pathLosses = {77, 80, 79, 78};
+    assertTrue(ProximityTracker.estimateSlope(times, pathLosses, 4, 0, result));
+    assertEquals(-2, result[0], 1e-9);
+    assertEquals(77, result[1], 1e-9);
+  }
+}
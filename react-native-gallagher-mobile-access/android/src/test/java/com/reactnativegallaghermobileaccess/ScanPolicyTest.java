@@ -0,0 +1,50 @@
+package com.reactnativegallaghermobileaccess;
+
+import com.gallagher.security.mobileaccess.BluetoothScanMode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ScanPolicyTest {
+  private static final long NOW = 10 * 60 * 1000;
+
+  @Test
+  public void lowBatteryOnlyRulesOutAppActive() {
+    ScanPolicy policy = new ScanPolicy();
+    policy.setForeground(true, NOW);
+    ScanPolicy.Decision decision = policy.decide(0, 10, false, NOW);
+    assertEquals("idle", decision.reason);
+    assertEquals(BluetoothScanMode.BACKGROUND_SCREEN_ON, decision.mode);
+    // the same as with no battery information at all, apart from the foreground boost
+    policy.setForeground(false, NOW - ScanPolicy.RECENT_FOREGROUND_MS);
+    assertEquals(policy.decide(0, -1, false, NOW).mode, policy.decide(0, 10, false, NOW).mode);
+
+    // a reader can still be seen, and wins
+    decision = policy.decide(1, 10, false, NOW);
+    assertEquals("readersNearby", decision.reason);
+    assertEquals(BluetoothScanMode.BACKGROUND_LOW_LATENCY, decision.mode);
+    policy.recordAccess(NOW);
+    assertEquals("recentAccess", policy.decide(0, 10, false, NOW).reason);
+  }
+
+  @Test
+  public void precedence() {
+    ScanPolicy policy = new ScanPolicy();
+    assertEquals("idle", policy.decide(0, 80, false, NOW).reason);
+    assertEquals("idle", policy.decide(0, 10, true, NOW).reason); // charging
+    assertEquals("idle", policy.decide(0, -1, false, NOW).reason); // battery unknown
+
+    policy.setForeground(true, NOW);
+    assertEquals("appActive", policy.decide(0, 80, false, NOW).reason);
+    policy.setForeground(false, NOW);
+    assertEquals("appActive", policy.decide(0, 80, false, NOW + ScanPolicy.RECENT_FOREGROUND_MS - 1).reason);
+    assertEquals("idle", policy.decide(0, 80, false, NOW + ScanPolicy.RECENT_FOREGROUND_MS).reason);
+    assertEquals("idle", policy.decide(0, 10, false, NOW).reason); // low battery
+    assertEquals("appActive", policy.decide(0, 10, true, NOW).reason); // but charging
+
+    policy.recordAccess(NOW);
+    assertEquals("recentAccess", policy.decide(0, 10, false, NOW).reason);
+    assertEquals("readersNearby", policy.decide(2, 10, false, NOW).reason);
+  }
+}
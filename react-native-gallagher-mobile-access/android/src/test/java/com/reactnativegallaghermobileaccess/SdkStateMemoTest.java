@@ -0,0 +1,99 @@
+package com.reactnativegallaghermobileaccess;
+
+import com.gallagher.security.mobileaccess.MobileAccessState;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+public class SdkStateMemoTest {
+  private static final MobileAccessState[] STATES = MobileAccessState.values();
+
+  @Test
+  public void repeatsAreNotReserialized() {
+    SdkStateMemo memo = new SdkStateMemo();
+    Collection<MobileAccessState> states = Arrays.asList(STATES[0], STATES[STATES.length - 1]);
+
+    String[] names = memo.update(true, states);
+    assertNotNull(names);
+    assertEquals(states.size(), names.length);
+    for (int i = 0; i < 10000; i++) {
+      // a fresh but equal collection each time, as the SDK hands us
+      assertNull(memo.update(true, Arrays.asList(STATES[0], STATES[STATES.length - 1])));
+    }
+  }
+
+  @Test
+  public void repeatsAllocateNothing() {
+    // HotSpot's; other JVMs may not count allocations per thread
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+    long thread = Thread.currentThread().getId();
+
+    SdkStateMemo memo = new SdkStateMemo();
+    // the same list each time, so that only the memo's own allocations count
+    List<MobileAccessState> states = new ArrayList<>(Arrays.asList(STATES[0], STATES[STATES.length - 1]));
+    assertNotNull(memo.update(true, states));
+    // warm up, including getThreadAllocatedBytes itself
+    for (int i = 0; i < 10000; i++) {
+      memo.update(true, states);
+    }
+    threads.getThreadAllocatedBytes(thread);
+
+    long before = threads.getThreadAllocatedBytes(thread);
+    String[] last = null;
+    for (int i = 0; i < 10000; i++) {
+      last = memo.update(true, states);
+    }
+    long allocated = threads.getThreadAllocatedBytes(thread) - before;
+    assertNull(last);
+    assertEquals(0, allocated);
+  }
+
+  @Test
+  public void scanningChangeReusesTheNames() {
+    SdkStateMemo memo = new SdkStateMemo();
+    Collection<MobileAccessState> states = Collections.singletonList(STATES[0]);
+
+    String[] names = memo.update(true, states);
+    assertSame(names, memo.update(false, states));
+    assertSame(names, memo.update(true, states));
+    assertNull(memo.update(true, states));
+  }
+
+  @Test
+  public void newStatesAreSerialized() {
+    SdkStateMemo memo = new SdkStateMemo();
+    String[] first = memo.update(true, Collections.singletonList(STATES[0]));
+    String[] second = memo.update(true, Collections.<MobileAccessState>emptyList());
+    assertNotNull(second);
+    assertNotSame(first, second);
+    assertEquals(0, second.length);
+    // the first array is left as it was, for anyone still holding it
+    assertEquals(GallagherMobileAccessModule.serializeSdkState(STATES[0]), first[0]);
+  }
+
+  @Test
+  public void resetReportsTheNextRepeat() {
+    SdkStateMemo memo = new SdkStateMemo();
+    Collection<MobileAccessState> states = Collections.singletonList(STATES[0]);
+    memo.update(true, states);
+    memo.reset();
+    assertNotNull(memo.update(true, states));
+    assertNull(memo.update(true, states));
+  }
+}
@@ -0,0 +1,219 @@
+package com.reactnativegallaghermobileaccess;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.gallagher.security.mobileaccess.MobileAccessState;
+import com.gallagher.security.mobileaccess.MobileCredential;
+import com.gallagher.security.mobileaccess.ReaderAttributes;
+import com.gallagher.security.mobileaccess.ReaderUpdateListener;
+import com.gallagher.security.mobileaccess.ReaderUpdateType;
+import com.gallagher.security.mobileaccess.RegistrationError;
+import com.gallagher.security.mobileaccess.RegistrationListener;
+import com.gallagher.security.mobileaccess.SdkStateListener;
+import com.gallagher.security.mobileaccess.SecondFactorAuthenticationType;
+import com.gallagher.security.mobileaccess.SecondFactorAuthenticationTypeSelector;
+
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SimulatedMobileAccessBackendTest {
+  // records each update as "id type pathLoss"
+  private static final class Recorder implements ReaderUpdateListener {
+    final List<String> updates = new ArrayList<>();
+
+    @Override
+    public synchronized void onReaderUpdated(@NonNull ReaderAttributes reader, @NonNull ReaderUpdateType updateType) {
+      updates.add(reader.getId() + " " + updateType + " " + reader.getMeasuredPathLoss());
+    }
+  }
+
+  private static SimulatedMobileAccessBackend.Options options() {
+    SimulatedMobileAccessBackend.Options options = new SimulatedMobileAccessBackend.Options();
+    options.readerCount = 5;
+    options.seed = 42;
+    options.tickIntervalMs = 100;
+    options.registrationLatencyMs = 500;
+    return options;
+  }
+
+  private static List<String> run(@NonNull SimulatedMobileAccessBackend.Options options, long ms) {
+    ManualScheduler scheduler = new ManualScheduler();
+    SimulatedMobileAccessBackend simulator = new SimulatedMobileAccessBackend(options, scheduler);
+    Recorder recorder = new Recorder();
+    simulator.addReaderUpdateListener(recorder);
+    simulator.start();
+    scheduler.advance(ms);
+    simulator.shutdown();
+    return recorder.updates;
+  }
+
+  @Test
+  public void ticksOnTheScheduler() {
+    ManualScheduler scheduler = new ManualScheduler();
+    SimulatedMobileAccessBackend simulator = new SimulatedMobileAccessBackend(options(), scheduler);
+    Recorder recorder = new Recorder();
+    simulator.addReaderUpdateListener(recorder);
+    simulator.start();
+
+    scheduler.advance(99);
+    assertTrue(recorder.updates.isEmpty());
+    scheduler.advance(1);
+    assertFalse(recorder.updates.isEmpty());
+    assertTrue(recorder.updates.size() <= options().readerCount);
+
+    simulator.shutdown();
+    int updates = recorder.updates.size();
+    scheduler.advance(10000);
+    assertEquals(updates, recorder.updates.size());
+    assertEquals(0, scheduler.pending());
+  }
+
+  @Test
+  public void sameSeedSameReadings() {
+    List<String> first = run(options(), 5000);
+    assertFalse(first.isEmpty());
+    assertEquals(first, run(options(), 5000));
+
+    SimulatedMobileAccessBackend.Options other = options();
+    other.seed = 43;
+    assertFalse(first.equals(run(other, 5000)));
+  }
+
+  @Test
+  public void notScanningStopsUpdates() {
+    ManualScheduler scheduler = new ManualScheduler();
+    SimulatedMobileAccessBackend simulator = new SimulatedMobileAccessBackend(options(), scheduler);
+    Recorder recorder = new Recorder();
+    simulator.addReaderUpdateListener(recorder);
+    simulator.setScanning(false);
+    simulator.start();
+    scheduler.advance(5000);
+    assertTrue(recorder.updates.isEmpty());
+
+    simulator.setScanning(true);
+    scheduler.advance(100);
+    assertFalse(recorder.updates.isEmpty());
+  }
+
+  @Test
+  public void stateFollowsCredentials() {
+    ManualScheduler scheduler = new ManualScheduler();
+    SimulatedMobileAccessBackend simulator = new SimulatedMobileAccessBackend(options(), scheduler);
+    final List<Collection<MobileAccessState>> states = new ArrayList<>();
+    simulator.addSdkStateListener(new SdkStateListener() {
+      @Override
+      public void onStateChanged(boolean isScanning, @NonNull Collection<MobileAccessState> mobileAccessStates) {
+        states.add(mobileAccessStates);
+      }
+    });
+    assertTrue(states.isEmpty()); // callbacks only ever arrive on the scheduler
+    scheduler.advance(0);
+    assertEquals(1, states.size());
+    assertTrue(states.get(0).contains(MobileAccessState.ERROR_NO_CREDENTIALS));
+
+    simulator.registerCredential(URI.create("https://example.com/invite"), new RegistrationListener() {
+      @Override
+      public void onRegistrationCompleted(@Nullable MobileCredential credential, @Nullable RegistrationError error) {
+      }
+
+      @Override
+      public void onAuthenticationTypeSelectionRequested(SecondFactorAuthenticationTypeSelector selector) {
+      }
+    });
+    scheduler.advance(500);
+    assertEquals(2, states.size());
+    assertTrue(states.get(1).isEmpty());
+    assertEquals(1, simulator.getMobileCredentials().size());
+  }
+
+  @Test
+  public void registrationWithSecondFactor() {
+    SimulatedMobileAccessBackend.Options options = options();
+    options.registrationRequiresSecondFactor = true;
+    ManualScheduler scheduler = new ManualScheduler();
+    SimulatedMobileAccessBackend simulator = new SimulatedMobileAccessBackend(options, scheduler);
+    final AtomicReference<SecondFactorAuthenticationTypeSelector> selector = new AtomicReference<>();
+    final AtomicReference<MobileCredential> credential = new AtomicReference<>();
+    simulator.registerCredential(URI.create("https://example.com/invite"), new RegistrationListener() {
+      @Override
+      public void onRegistrationCompleted(@Nullable MobileCredential result, @Nullable RegistrationError error) {
+        assertNull(error);
+        credential.set(result);
+      }
+
+      @Override
+      public void onAuthenticationTypeSelectionRequested(SecondFactorAuthenticationTypeSelector typeSelector) {
+        selector.set(typeSelector);
+      }
+    });
+
+    scheduler.advance(499);
+    assertNull(selector.get());
+    scheduler.advance(1);
+    assertNotNull(selector.get());
+    scheduler.advance(10000);
+    assertNull(credential.get()); // waits for the selection, however long
+
+    selector.get().select(true, SecondFactorAuthenticationType.PIN);
+    scheduler.advance(500);
+    assertNotNull(credential.get());
+    assertEquals("Simulated facility (example.com)", credential.get().getFacilityName());
+  }
+
+  // tick() called from several threads at once, as a test driving the simulator by hand might alongside
+  // its timer: every reading must still come from a whole step, within the simulated range
+  @Test
+  public void concurrentTicks() throws InterruptedException {
+    SimulatedMobileAccessBackend.Options options = options();
+    options.readerCount = 50;
+    options.pathLossNoise = 0;
+    final SimulatedMobileAccessBackend simulator = new SimulatedMobileAccessBackend(options, new ManualScheduler());
+    final Recorder recorder = new Recorder();
+    simulator.addReaderUpdateListener(recorder);
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < 500; i++) {
+              simulator.tick();
+            }
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+    assertFalse(recorder.updates.isEmpty());
+    for (String update : recorder.updates) {
+      double pathLoss = Double.parseDouble(update.substring(update.lastIndexOf(' ') + 1));
+      assertTrue(update, pathLoss >= 40 && pathLoss <= 110);
+    }
+  }
+}
@@ -11,10 +11,69 @@ declare module 'react-native-gallagher-mobile-access' {
     [key: string]: any
   }
 
+  // on android, reader contains the id plus only the fields which changed since the last update for that reader
   export interface ReaderUpdated {
     [key: string]: any
   }
 
+  export interface ReaderAttributes {
+    id: String;
+    name: String;
+    measuredPathLoss: Number;
+    distance: String;
+    autoConnectPathLoss: Number;
+    manualConnectPathLoss: Number;
+    isBleManualConnectEnabled: Boolean;
+    isBleAutoConnectEnabled: Boolean;
+    isSecondFactorRequired: Boolean;
+    isBleActionsEnabled: Boolean;
+    // android only: a reader remembered from a previous run, which hasn't been seen yet this time.
+    // Has no measuredPathLoss or distance. Superseded by the first live update for the same id
+    stale?: Boolean;
+  }
+
+  // android only: emitted instead of ReaderUpdated while the reader update mode is "coalesced".
+  // carries updates in the "maps" reader update format, or packed in the "packed" format (see decodePackedReaders)
+  export interface ReadersUpdated {
+    updates?: [ReaderUpdated];
+    packed?: String;
+  }
+
+  // android only: emitted when the trend in a reader's path loss changes, i.e. the user starts walking
+  // towards or away from it, or stops
+  export interface ReaderApproach {
+    id: String;
+    trend: 'approaching' | 'receding' | 'steady';
+    // dB per second; negative when approaching
+    slope: Number;
+    pathLoss: Number;
+    // estimates, only present while approaching. 0 if already within the threshold
+    secondsToManualConnect?: Number;
+    secondsToAutoConnect?: Number;
+  }
+
+  export interface PackedReader extends ReaderAttributes {
+    updateType: 'attributesChanged' | 'readerUnavailable';
+  }
+
+  // decodes the result of getReadersPacked, or ReadersUpdated.packed
+  export function decodePackedReaders(packed: String): [PackedReader];
+
+  export interface EventSubscription {
+    // safe to call more than once
+    remove(): void;
+  }
+
+  // use instead of new NativeEventEmitter(GallagherMobileAccess): on android it also tells the module which
+  // events have listeners, so nothing is serialized or kept hooked for events nobody listens to
+  export const GallagherMobileAccessEvents: {
+    addListener(eventName: String, listener: (event: any) => void, context?: Object): EventSubscription;
+  };
+
+  // on android, access events also carry
+  // - timestamp: when the SDK reported the event, in ms since the epoch. Date.now() - timestamp in your listener
+  //   gives the SDK callback -> JS listener latency
+  // - dispatchLatencyMs: the native share of that latency
   export interface AccessEvent {
     [key: string]: any
   }
@@ -24,6 +83,218 @@ declare module 'react-native-gallagher-mobile-access' {
     name: String;
   }
 
+  export interface AccessRequest {
+    id: String;
+    // rejects with "access_timeout" if there is no decision by then (10000)
+    timeoutMs?: Number;
+    // any unique string, to pass to cancelAccessRequest
+    requestId?: String;
+  }
+
+  export interface AccessRequestResult {
+    event: 'granted' | 'denied' | 'error';
+    message: String;
+    code?: Number;
+    reader: Reader;
+    timing: {
+      // finding the reader
+      lookupMs: Number;
+      // asking the SDK to connect -> access started
+      connectMs: Number;
+      // access started -> decision
+      decisionMs: Number;
+      totalMs: Number;
+    };
+  }
+
+  export interface BackgroundScanningMode {
+    // as last passed to setBackgroundScanningMode
+    requested: String;
+    // the BluetoothScanMode in effect, or null before the first setBackgroundScanningMode
+    active: String | null;
+    // in adaptive mode, why the active mode was chosen:
+    // 'readersNearby' | 'recentAccess' | 'appActive' | 'idle' (which includes the app being active on low
+    // battery). 'requested' otherwise
+    reason: String | null;
+    // every mode setBackgroundScanningMode accepts on this device, besides "standard" and "extended"
+    available: [String];
+  }
+
+  export interface ReaderUpdateFilter {
+    // dB the (smoothed) path loss must move before it is reported again
+    minPathLossDelta?: Number;
+    // only report path loss when the reader distance also changes
+    distanceChangesOnly?: Boolean;
+    // weight (0..1] of the newest sample in a moving average of path loss. 1 disables smoothing
+    pathLossSmoothing?: Number;
+  }
+
+  export interface ReaderUpdateStats {
+    received: Number;
+    suppressed: Number;
+    // shed by the event queue overflow policy
+    dropped: Number;
+  }
+
+  // durations counted in power of two buckets of microseconds: buckets[0] is under 1us,
+  // buckets[i] is [2^(i-1), 2^i) us, and the last bucket has everything longer
+  export interface MetricsHistogram {
+    count: Number;
+    meanMs: Number;
+    maxMs: Number;
+    buckets: [Number];
+  }
+
+  export interface EventMetrics {
+    emitted: Number;
+    perSecond: Number;
+    serialization: MetricsHistogram;
+  }
+
+  // counts cover the window since resetMetrics (or startup)
+  export interface Metrics {
+    windowMs: Number;
+    events: {
+      sdkStateChanged: EventMetrics;
+      readerUpdated: EventMetrics;
+      readersUpdated: EventMetrics;
+      access: EventMetrics;
+    };
+    // SDK callback -> emit
+    accessLatency: MetricsHistogram;
+    queueDepth: Number;
+    dropped: Number;
+    suppressed: Number;
+    // reader updates superseded by a later update for the same reader before a coalesced flush
+    coalesced: Number;
+    pendingRegistrations: Number;
+  }
+
+  // the journal as columns, oldest record first: record i is time[i], types[type[i]], readers[reader[i]]
+  // (reader[i] is -1 for records without a reader), value[i] and code[i]. What value and code mean
+  // depends on the type; see EventJournal.java
+  export interface Journal {
+    types: [String];
+    readers: [String];
+    time: [Number];
+    type: [Number];
+    reader: [Number];
+    value: [Number];
+    code: [Number];
+  }
+
+  // all optional; shown in the ongoing notification BackgroundAccessService needs to run
+  export interface BackgroundServiceOptions {
+    channelId?: String;
+    channelName?: String;
+    title?: String;
+    text?: String;
+    // name of a drawable resource in your app; defaults to the app icon
+    smallIcon?: String;
+  }
+
+  // all optional; defaults in brackets. Text templates may include {reader} and {message}
+  export interface UnlockNotificationOptions {
+    // false turns unlock notifications off again (true)
+    enabled?: Boolean;
+    channelId?: String;
+    channelName?: String;
+    // name of a drawable resource in your app (the app icon)
+    smallIcon?: String;
+    grantedTitle?: String;
+    grantedText?: String;
+    deniedTitle?: String;
+    deniedText?: String;
+    // connection errors
+    errorTitle?: String;
+    errorText?: String;
+    notifyDenied?: Boolean;
+    notifyErrors?: Boolean;
+    // a repeat of the same result at the same reader within this is dropped, and only the first notification
+    // within it alerts (10000)
+    throttleMs?: Number;
+  }
+
+  export interface UnlockNotificationStats {
+    posted: Number;
+    // results dropped as repeats
+    collapsed: Number;
+  }
+
+  export interface BackgroundEvents {
+    // access events JS missed while it wasn't listening, oldest first
+    events: [AccessEvent];
+    // older events which didn't fit in the buffer
+    dropped: Number;
+  }
+
+  export interface Replay {
+    // the last sdkStateChanged, or from getStates (without isScanning or timestamp) if there hasn't been one
+    sdkState: {
+      isScanning?: Boolean;
+      states: [String];
+      timestamp?: Number;
+    };
+    // as getReaders
+    readers: [ReaderAttributes];
+    credentials: [MobileCredential];
+    // the last few access events, oldest first, whether or not JS received them at the time
+    access: [AccessEvent];
+  }
+
+  // all optional; defaults in brackets
+  export interface ReplayOptions {
+    // keeps the sdk state and access listeners hooked so the replay is current even while nothing else
+    // is listening (false)
+    enabled?: Boolean;
+    // access events to keep, up to 256 (20)
+    accessEvents?: Number;
+  }
+
+  export interface EventQueueOptions {
+    capacity?: Number;
+    overflowPolicy?: 'dropOldest' | 'dropNewest';
+  }
+
+  // one per item of a batch operation, in the order given. key is the credential id or url
+  export interface BatchItemResult<T> {
+    key: String;
+    success: Boolean;
+    value?: T;
+    code?: String;
+    message?: String;
+  }
+
+  export interface PendingRegistrationOptions {
+    // how long a registration may wait for registerCredentialContinue (5 minutes)
+    ttlMs?: Number;
+    // beyond this many registrations waiting for registerCredentialContinue, the oldest is expired (64).
+    // An expired registration is ended in the SDK, and registerCredentialContinue with its continuationPoint
+    // rejects with "registration_expired"
+    maxPending?: Number;
+  }
+
+  export interface CredentialCacheStats {
+    hits: Number;
+    misses: Number;
+  }
+
+  // all optional; defaults in brackets
+  export interface SimulatorOptions {
+    // number of virtual readers (20)
+    readerCount?: Number;
+    // the same seed and options always produce the same sequence of readings (1)
+    seed?: Number;
+    // how often every reader reports a new reading (100)
+    tickIntervalMs?: Number;
+    // standard deviation of each path loss reading, dB (2)
+    pathLossNoise?: Number;
+    // per registration step (500)
+    registrationLatencyMs?: Number;
+    // registerCredential resolves with a continuationPoint first, as for a real second factor (false)
+    registrationRequiresSecondFactor?: Boolean;
+  }
+
   export interface RegisterCredentialContinuation {
     completed: Boolean;
     continuationPoint: String;
@@ -36,16 +307,26 @@ declare module 'react-native-gallagher-mobile-access' {
 
   const GallagherMobileAccess: {
     // MobileAccessProvider
+    // resolves once the SDK is ready. On android, configuration happens in the background, and calls made
+    // before it finishes are queued and run once it does
     configure(
       dbFilePath?: String,
       cloudTlsValidationMode?: String,
       enabledFeatures?: [String]
-    ): void;
+    ): Promise<void>;
+    // android only: configure against a simulated SDK with virtual readers and no hardware, for load testing.
+    // Access isn't simulated (requestAccess rejects with not_supported). Call instead of configure
+    configureSimulator(options: SimulatorOptions): Promise<void>;
+    // android only: pre-load credentials and SDK state during configure. Defaults to true; call before configure
+    setWarmUpEnabled(enabled: Boolean): void;
 
     // MobileAccess
     setAutomaticAccessEnabled(enabled: Boolean): void;
     setScanning(enabled: Boolean): void;
+    // "standard" or "extended". On android also "adaptive", or the name of any BluetoothScanMode, e.g. "backgroundLowLatency"
     setBackgroundScanningMode(mode: String): void;
+    // android only
+    getBackgroundScanningMode(): Promise<BackgroundScanningMode>;
     resolveInvitationUrl(host: String, invitationCode: String): Promise<String>;
     registerCredential(
       url: String
@@ -58,7 +339,65 @@ declare module 'react-native-gallagher-mobile-access' {
     getStates(): Promise<[String]>;
     getCredentials(): Promise<[MobileCredential]>;
     deleteCredential(credentialId: String): Promise<[MobileCredential]>;
-    requestAccess(reader: Reader): void;
+    // android only so far: manual connect to a reader seen in reader updates
+    requestAccess(reader: AccessRequest): Promise<AccessRequestResult>;
+    // android only: rejects the request's promise with "access_cancelled"
+    cancelAccessRequest(requestId: String): void;
+
+    // android only
+    registerCredentials(
+      urls: [String]
+    ): Promise<[BatchItemResult<RegisterCredentialContinuation | RegisterCredentialResult>]>;
+    deleteCredentials(credentialIds: [String]): Promise<[BatchItemResult<MobileCredential>]>;
+    // android only: abandoned registrations expire, after which registerCredentialContinue rejects with
+    // "registration_expired"
+    setPendingRegistrationOptions(options: PendingRegistrationOptions): Promise<void>;
+    // android only: getCredentials and deleteCredential are served from a native cache
+    getCredentialCacheStats(): Promise<CredentialCacheStats>;
+    // android only: synchronous reads which skip the promise round trip. Not available under remote JS debugging.
+    // getStatesSync never waits on the SDK: it returns null unless the module is already tracking the SDK's
+    // state, i.e. after configure and while something listens to sdkStateChanged (or setReplayOptions or a
+    // native subscriber keeps the listener hooked). Fall back to getStates when it does
+    getStatesSync(): [String] | null;
+    getReadersSync(): [ReaderAttributes];
+    resetCredentialCacheStats(): void;
+
+    // android only: "coalesced" (the default) batches readerUpdated events into readersUpdated
+    setReaderUpdateMode(mode: 'immediate' | 'coalesced'): void;
+    setReaderUpdateInterval(intervalMs: Number): void;
+    setReaderUpdateFormat(format: 'maps' | 'packed'): void;
+    // android only: the readers in range, then any remembered from previous runs (marked stale)
+    getReaders(): Promise<[ReaderAttributes]>;
+    // android only: as getReaders, packed for decodePackedReaders
+    getReadersPacked(): Promise<String>;
+    // android only
+    setReaderUpdateFilter(options: ReaderUpdateFilter): Promise<void>;
+    getReaderUpdateStats(): Promise<ReaderUpdateStats>;
+    resetReaderUpdateStats(): void;
+    // android only
+    setEventQueueOptions(options: EventQueueOptions): Promise<void>;
+    // android only: a record of the last few thousand SDK callbacks, kept whether or not JS is listening
+    setJournalEnabled(enabled: Boolean): void;
+    getJournal(): Promise<Journal>;
+    // writes CSV to filePath, or to the app's cache directory. Resolves with the path written
+    dumpJournal(filePath?: String | null): Promise<String>;
+    // android only: catch up in one call, e.g. after a JS reload or in a screen mounted late
+    getReplay(): Promise<Replay>;
+    setReplayOptions(options: ReplayOptions): Promise<void>;
+    // android only: a foreground service which keeps automatic access running in the background, even after
+    // the React instance is gone. Call after configure
+    startBackgroundService(options: BackgroundServiceOptions): Promise<void>;
+    stopBackgroundService(): Promise<void>;
+    // the access events which happened while JS wasn't listening; each is only returned once
+    takeBackgroundEvents(): Promise<BackgroundEvents>;
+    // android only: a notification for each access result, native and throttled, so it works in the background
+    setUnlockNotifications(options: UnlockNotificationOptions): Promise<void>;
+    getUnlockNotificationStats(): Promise<UnlockNotificationStats>;
+    // android only
+    getMetrics(): Promise<Metrics>;
+    resetMetrics(): void;
+    // android only: emit a "metrics" event every intervalMs. 0 (the default) stops it
+    setMetricsInterval(intervalMs: Number): void;
   }
 
   export default GallagherMobileAccess;
@@ -1,3 +1,136 @@
-import { NativeModules } from 'react-native';
+import { NativeEventEmitter, NativeModules, Platform } from 'react-native';
 const { GallagherMobileAccess } = NativeModules;
 export default GallagherMobileAccess;
+
+// Subscribe to our events through this rather than a NativeEventEmitter of your own. It also tells the
+// native module, by name, which events have listeners, so on Android events nobody listens to aren't
+// serialized and the SDK listeners behind them can be unhooked. React Native 0.64 doesn't tell Android
+// native modules about subscriptions at all, and later versions only say how many went away, not which.
+let emitter = null;
+
+export const GallagherMobileAccessEvents = {
+  addListener(eventName, listener, context) {
+    if (emitter === null) {
+      emitter = new NativeEventEmitter(GallagherMobileAccess);
+    }
+    const subscription = emitter.addListener(eventName, listener, context);
+    if (Platform.OS !== 'android') {
+      return subscription; // iOS hooks and unhooks in startObserving / stopObserving
+    }
+    GallagherMobileAccess.subscribeEvent(eventName);
+    let subscribed = true;
+    return {
+      remove() {
+        if (subscribed) {
+          subscribed = false;
+          subscription.remove();
+          GallagherMobileAccess.unsubscribeEvent(eventName);
+        }
+      },
+    };
+  },
+};
+
+// Decodes the base64 string produced by getReadersPacked, or carried by readersUpdated in the "packed"
+// reader update format, into an array of reader objects shaped like those from getReaders.
+// The layout is documented in PackedReaderEncoder.java; keep the two in step.
+
+const PACKED_HEADER_SIZE = 8;
+const PACKED_RECORD_SIZE = 20;
+const PACKED_DISTANCES = ['far', 'medium', 'near'];
+const PACKED_UPDATE_TYPES = ['attributesChanged', 'readerUnavailable'];
+
+const BASE64_ALPHABET =
+  'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/';
+const BASE64_LOOKUP = new Uint8Array(128);
+for (let i = 0; i < BASE64_ALPHABET.length; i++) {
+  BASE64_LOOKUP[BASE64_ALPHABET.charCodeAt(i)] = i;
+}
+
+// neither atob nor TextDecoder are available in every JS engine React Native runs on
+function base64ToBytes(base64) {
+  let padding = 0;
+  if (base64.endsWith('==')) {
+    padding = 2;
+  } else if (base64.endsWith('=')) {
+    padding = 1;
+  }
+  const bytes = new Uint8Array((base64.length / 4) * 3 - padding);
+  let out = 0;
+  for (let i = 0; i < base64.length; i += 4) {
+    const chunk =
+      (BASE64_LOOKUP[base64.charCodeAt(i)] << 18) |
+      (BASE64_LOOKUP[base64.charCodeAt(i + 1)] << 12) |
+      (BASE64_LOOKUP[base64.charCodeAt(i + 2)] << 6) |
+      BASE64_LOOKUP[base64.charCodeAt(i + 3)];
+    if (out < bytes.length) bytes[out++] = (chunk >> 16) & 0xff;
+    if (out < bytes.length) bytes[out++] = (chunk >> 8) & 0xff;
+    if (out < bytes.length) bytes[out++] = chunk & 0xff;
+  }
+  return bytes;
+}
+
+function utf8ToString(bytes, start, end) {
+  let result = '';
+  let i = start;
+  while (i < end) {
+    const b = bytes[i++];
+    let codePoint;
+    if (b < 0x80) {
+      codePoint = b;
+    } else if (b < 0xe0) {
+      codePoint = ((b & 0x1f) << 6) | (bytes[i++] & 0x3f);
+    } else if (b < 0xf0) {
+      codePoint =
+        ((b & 0x0f) << 12) | ((bytes[i++] & 0x3f) << 6) | (bytes[i++] & 0x3f);
+    } else {
+      codePoint =
+        ((b & 0x07) << 18) |
+        ((bytes[i++] & 0x3f) << 12) |
+        ((bytes[i++] & 0x3f) << 6) |
+        (bytes[i++] & 0x3f);
+    }
+    result += String.fromCodePoint(codePoint);
+  }
+  return result;
+}
+
+export function decodePackedReaders(base64) {
+  const bytes = base64ToBytes(base64);
+  const view = new DataView(bytes.buffer);
+  if (bytes[0] !== 0x47 || bytes[1] !== 0x52 || bytes[2] !== 1) {
+    throw new Error('unsupported packed reader format');
+  }
+  const recordCount = view.getUint16(4, true);
+  const stringCount = view.getUint16(6, true);
+
+  const strings = new Array(stringCount);
+  let offset = PACKED_HEADER_SIZE + recordCount * PACKED_RECORD_SIZE;
+  for (let i = 0; i < stringCount; i++) {
+    const length = view.getUint16(offset, true);
+    offset += 2;
+    strings[i] = utf8ToString(bytes, offset, offset + length);
+    offset += length;
+  }
+
+  const readers = new Array(recordCount);
+  for (let i = 0; i < recordCount; i++) {
+    const r = PACKED_HEADER_SIZE + i * PACKED_RECORD_SIZE;
+    const flags = bytes[r + 17];
+    readers[i] = {
+      id: strings[view.getUint16(r, true)],
+      name: strings[view.getUint16(r + 2, true)],
+      measuredPathLoss: view.getFloat32(r + 4, true),
+      autoConnectPathLoss: view.getFloat32(r + 8, true),
+      manualConnectPathLoss: view.getFloat32(r + 12, true),
+      distance: PACKED_DISTANCES[bytes[r + 16]] || '',
+      isBleManualConnectEnabled: (flags & 1) !== 0,
+      isBleAutoConnectEnabled: (flags & 2) !== 0,
+      isSecondFactorRequired: (flags & 4) !== 0,
+      isBleActionsEnabled: (flags & 8) !== 0,
+      stale: (flags & 16) !== 0,
+      updateType: PACKED_UPDATE_TYPES[bytes[r + 18]],
+    };
+  }
+  return readers;
+}
@@ -5,7 +5,9 @@
 // MobileAccessProvider
 RCT_EXTERN_METHOD(configure:(nullable NSString*)databaseFilePath
                   cloudTlsValidationMode:(nullable NSString*)cloudTlsValidationMode
-                  enabledFeatures:(nullable NSArray<NSString*>*)enabledFeatures)
+                  enabledFeatures:(nullable NSArray<NSString*>*)enabledFeatures
+                  resolve:(RCTPromiseResolveBlock)resolve
+                  reject:(RCTPromiseRejectBlock)reject)
 
 // MobileAccess
 RCT_EXTERN_METHOD(setAutomaticAccessEnabled:(BOOL)enabled)
@@ -33,6 +35,6 @@ RCT_EXTERN_METHOD(getCredentials:(nonnull RCTPromiseResolveBlock)resolve reject:
 
 RCT_EXTERN_METHOD(deleteCredential:(nonnull NSString*)credentialId resolve:(nonnull RCTPromiseResolveBlock)resolve reject:(nonnull RCTPromiseRejectBlock)reject)
 
-RCT_EXTERN_METHOD(requestAccess:(nonnull NSDictionary*)reader)
+RCT_EXTERN_METHOD(requestAccess:(nonnull NSDictionary*)reader resolve:(nonnull RCTPromiseResolveBlock)resolve reject:(nonnull RCTPromiseRejectBlock)reject)
 
 @end
@@ -95,10 +95,11 @@ class RNGallagherMobileAccess: RCTEventEmitter, SdkStateDelegate, ReaderUpdateDe
     
     // MARK: - MobileAccessProvider methods
 
-    @objc
-    func configure(_ dbFilePath: String?, cloudTlsValidationMode: String?, enabledFeatures: [String]?) {
+    @objc(configure:cloudTlsValidationMode:enabledFeatures:resolve:reject:)
+    func configure(_ dbFilePath: String?, cloudTlsValidationMode: String?, enabledFeatures: [String]?, resolve: RCTPromiseResolveBlock, reject: RCTPromiseRejectBlock) {
         guard _instance == nil else {
             print("GallagherMobileAccess already configured; assuming deveveloper reload of JS environment")
+            resolve(nil)
             return
         }
         
@@ -136,6 +137,7 @@ class RNGallagherMobileAccess: RCTEventEmitter, SdkStateDelegate, ReaderUpdateDe
         }
         
         _instance = MobileAccessProvider.configure(databaseFilePath: dbFileUrl, localization: nil, cloudTlsValidationMode: tlsMode, enabledFeatures: sdkFeatures)
+        resolve(nil)
     }
     
     // MARK: - MobileAccess methods
@@ -270,8 +272,8 @@ class RNGallagherMobileAccess: RCTEventEmitter, SdkStateDelegate, ReaderUpdateDe
     }
     
     @objc
-    func requestAccess(_ reader: [String: Any]) {
-        
+    func requestAccess(_ reader: [String: Any], resolve: RCTPromiseResolveBlock, reject: RCTPromiseRejectBlock) {
+        reject("not_implemented", "requestAccess is not yet implemented on iOS", nil)
     }
 }
 